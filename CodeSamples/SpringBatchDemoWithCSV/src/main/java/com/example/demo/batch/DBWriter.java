@@ -5,15 +5,21 @@ import com.example.demo.repository.UserRepository;
 import org.springframework.batch.item.Chunk;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
 
 public class DBWriter implements ItemWriter<User> {
     @Autowired
     private UserRepository userRepository;
 
+    @Value("${batch.writer.log-chunks:true}")
+    private boolean logChunks;
+
     @Override
     public void write(Chunk<? extends User> users) throws Exception {
-        System.out.println("Data Saved for Users: " + users);
+        if (logChunks) {
+            System.out.println("Data Saved for Users: " + users);
+        }
         userRepository.saveAll(users);
     }
 }
\ No newline at end of file
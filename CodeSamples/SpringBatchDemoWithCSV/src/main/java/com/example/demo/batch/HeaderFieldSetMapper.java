@@ -0,0 +1,102 @@
+package com.example.demo.batch;
+
+import org.springframework.batch.item.file.LineCallbackHandler;
+import org.springframework.batch.item.file.mapping.FieldSetMapper;
+import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.batch.item.file.transform.FieldSet;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Maps delimited lines by the column names of the file's header, so columns may come in any order and
+ * columns nobody asked for are ignored.
+ *
+ * Used as the reader's skippedLinesCallback, it resolves the position of every column once when the
+ * header is skipped. It then tells the tokenizer to keep only those columns (no Strings are created for
+ * the others), in file order, so each row is mapped by index with the bindings sorted the same way:
+ * no name lookups, no reflection.
+ */
+public class HeaderFieldSetMapper<T> implements FieldSetMapper<T>, LineCallbackHandler {
+
+    /**
+     * Sets one property of the target from the token at the given index.
+     */
+    @FunctionalInterface
+    public interface Binding<T> {
+        void bind(T target, FieldSet fieldSet, int index);
+    }
+
+    private final DelimitedLineTokenizer tokenizer;
+    private final String delimiter;
+    private final Supplier<T> factory;
+    private final Map<String, Binding<T>> columns = new LinkedHashMap<>();
+
+    // In the order of the columns in the file, set once the header is read
+    private volatile List<Binding<T>> bindings;
+
+    /**
+     * @param tokenizer the reader's tokenizer, without names
+     */
+    public HeaderFieldSetMapper(DelimitedLineTokenizer tokenizer, String delimiter, Supplier<T> factory) {
+        this.tokenizer = tokenizer;
+        this.delimiter = delimiter;
+        this.factory = factory;
+    }
+
+    /**
+     * Binds the column with the given name (case-insensitive). The column must be in the header.
+     */
+    public HeaderFieldSetMapper<T> column(String name, Binding<T> binding) {
+        columns.put(normalize(name), binding);
+        return this;
+    }
+
+    @Override
+    public void handleLine(String header) {
+        String[] names = header.split(Pattern.quote(delimiter), -1);
+        Map<String, Integer> positions = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            positions.putIfAbsent(normalize(names[i]), i); // the first of duplicate columns wins
+        }
+
+        List<Map.Entry<String, Binding<T>>> bound = new ArrayList<>(columns.entrySet());
+        for (Map.Entry<String, Binding<T>> column : bound) {
+            if (!positions.containsKey(column.getKey())) {
+                throw new IllegalStateException("Column '" + column.getKey() + "' is missing from the header: " + header);
+            }
+        }
+        bound.sort(Comparator.comparingInt(column -> positions.get(column.getKey())));
+
+        tokenizer.setIncludedFields(bound.stream().mapToInt(column -> positions.get(column.getKey())).toArray());
+        bindings = bound.stream().map(Map.Entry::getValue).toList();
+    }
+
+    @Override
+    public T mapFieldSet(FieldSet fieldSet) {
+        List<Binding<T>> current = bindings;
+        if (current == null) {
+            throw new IllegalStateException("No header was read, register the mapper as skippedLinesCallback with linesToSkip(1)");
+        }
+        T target = factory.get();
+        for (int i = 0; i < current.size(); i++) {
+            current.get(i).bind(target, fieldSet, i);
+        }
+        return target;
+    }
+
+    // Trims spaces, quotes and a byte order mark
+    private static String normalize(String name) {
+        String trimmed = (name.startsWith("\uFEFF") ? name.substring(1) : name).strip();
+        if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            trimmed = trimmed.substring(1, trimmed.length() - 1);
+        }
+        return trimmed.toLowerCase(Locale.ROOT);
+    }
+}
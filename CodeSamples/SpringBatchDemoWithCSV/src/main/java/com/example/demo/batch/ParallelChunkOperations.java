@@ -0,0 +1,73 @@
+package com.example.demo.batch;
+
+import org.springframework.batch.repeat.RepeatCallback;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.RepeatException;
+import org.springframework.batch.repeat.RepeatOperations;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.repeat.context.RepeatContextSupport;
+import org.springframework.batch.repeat.support.RepeatSynchronizationManager;
+import org.springframework.core.task.TaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Step operations that run the chunks of a step on a fixed number of threads. Each thread processes
+ * one chunk after the other until the input is exhausted or another thread has failed, so exactly
+ * that many chunks are in flight. It replaces the TaskExecutorRepeatTemplate that
+ * StepBuilder.taskExecutor sets up, which allows no more than four chunks at a time since its
+ * throttleLimit is deprecated.
+ */
+public class ParallelChunkOperations implements RepeatOperations {
+
+    private final TaskExecutor taskExecutor;
+    private final int threads;
+
+    public ParallelChunkOperations(TaskExecutor taskExecutor, int threads) {
+        this.taskExecutor = taskExecutor;
+        this.threads = threads;
+    }
+
+    @Override
+    public RepeatStatus iterate(RepeatCallback callback) {
+        RepeatContext context = new RepeatContextSupport(RepeatSynchronizationManager.getContext());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        List<CompletableFuture<Void>> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.add(CompletableFuture.runAsync(() -> repeat(callback, context, failure), taskExecutor));
+        }
+        CompletableFuture.allOf(workers.toArray(CompletableFuture[]::new)).join();
+
+        Throwable throwable = failure.get();
+        if (throwable instanceof RuntimeException e) {
+            throw e;
+        }
+        if (throwable instanceof Error e) {
+            throw e;
+        }
+        if (throwable != null) {
+            throw new RepeatException("Chunk failed", throwable);
+        }
+        return RepeatStatus.FINISHED;
+    }
+
+    private static void repeat(RepeatCallback callback, RepeatContext context, AtomicReference<Throwable> failure) {
+        RepeatSynchronizationManager.register(context);
+        try {
+            while (!context.isCompleteOnly()) {
+                if (!callback.doInIteration(context).isContinuable()) {
+                    context.setCompleteOnly(); // the reader is exhausted, the other threads finish their chunk
+                }
+            }
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+            context.setCompleteOnly();
+        } finally {
+            RepeatSynchronizationManager.clear();
+        }
+    }
+}
@@ -1,26 +1,71 @@
 package com.example.demo.batch;
 
 import com.example.demo.model.User;
+import com.example.demo.service.DepartmentDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.item.ItemProcessor;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.LongAdder;
 
-public class Processor implements ItemProcessor<User, User> {
-    private static final Map<String, String> DEPT_NAMES = new HashMap<>();
+/**
+ * Replaces the department code of each user by its name. Instead of a line per user, the number of users
+ * per department is logged once at the end of the step.
+ */
+public class Processor implements ItemProcessor<User, User>, StepExecutionListener {
+    private static final Logger logger = LoggerFactory.getLogger(Processor.class);
 
-    public Processor() {
-        DEPT_NAMES.put("001", "Technology");
-        DEPT_NAMES.put("002", "Operations");
-        DEPT_NAMES.put("003", "Accounts");
+    private final DepartmentDirectory departments;
+
+    // One counter per department code, the last one for unknown codes. LongAdder, so threads don't contend.
+    private volatile LongAdder[] converted = new LongAdder[0];
+
+    public Processor(DepartmentDirectory departments) {
+        this.departments = departments;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        LongAdder[] counters = new LongAdder[departments.size() + 1];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        converted = counters;
     }
 
     @Override
     public User process(User user) throws Exception {
         String deptCode = user.getDept();
-        String dept = DEPT_NAMES.get(deptCode);
+        String dept = departments.name(deptCode);
         user.setDept(dept);
-        System.out.println(String.format("Converted from [%s] to [%s]", deptCode, dept));
+
+        LongAdder[] counters = converted;
+        if (counters.length > 0) {
+            int index = DepartmentDirectory.index(deptCode);
+            // a code added by a refresh during the step is counted with the unknown ones
+            counters[dept != null && index < counters.length - 1 ? index : counters.length - 1].increment();
+        }
         return user;
     }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        LongAdder[] counters = converted;
+        StringJoiner summary = new StringJoiner(", ");
+        for (int i = 0; i < counters.length - 1; i++) {
+            long count = counters[i].sum();
+            if (count > 0) {
+                summary.add(String.format("%03d (%s): %d", i, departments.name(Integer.toString(i)), count));
+            }
+        }
+        if (counters.length > 0 && counters[counters.length - 1].sum() > 0) {
+            summary.add("unknown: " + counters[counters.length - 1].sum());
+        }
+        logger.info("Converted department codes in step {}: {}", stepExecution.getStepName(), summary);
+        return null;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package com.example.demo.batch.stats;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Salary statistics per department, filled by any number of threads without locking: every thread adds
+ * to its own partial statistics, and merged() combines the partials once the step is done. Memory depends
+ * on the number of departments and threads, not on the number of users.
+ */
+public class DeptSalaryStatsAccumulator {
+
+    /** Department of users whose code had no name. */
+    public static final String UNKNOWN_DEPT = "unknown";
+
+    private final double compression;
+
+    private final Queue<Partial> partials = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Partial> localPartial = new ThreadLocal<>();
+    private volatile int generation;
+
+    private static class Partial {
+        final int generation;
+        final Map<String, SalaryStats> byDept = new HashMap<>();
+
+        Partial(int generation) {
+            this.generation = generation;
+        }
+    }
+
+    public DeptSalaryStatsAccumulator(double compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * Drops everything accumulated so far. Partials still held by threads of an earlier run are recognised
+     * by their generation and replaced.
+     */
+    public void reset() {
+        generation++; // only called from beforeStep, before any thread adds
+        partials.clear();
+    }
+
+    public void add(String dept, double salary) {
+        Partial partial = localPartial.get();
+        if (partial == null || partial.generation != generation) {
+            partial = new Partial(generation);
+            localPartial.set(partial);
+            partials.add(partial);
+        }
+        partial.byDept.computeIfAbsent(dept == null ? UNKNOWN_DEPT : dept, d -> new SalaryStats(compression)).add(salary);
+    }
+
+    /**
+     * The statistics of all threads, by department. Only to be called after the threads are done.
+     */
+    public Map<String, SalaryStats> merged() {
+        Map<String, SalaryStats> merged = new TreeMap<>();
+        for (Partial partial : partials) {
+            partial.byDept.forEach((dept, stats) ->
+                    merged.computeIfAbsent(dept, d -> new SalaryStats(compression)).merge(stats));
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.batch.stats;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the contents of dept_salary_stats with the merged statistics, in the step's transaction.
+ */
+public class DeptSalaryStatsTasklet implements Tasklet {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeptSalaryStatsTasklet.class);
+
+    private static final String INSERT_SQL = """
+            INSERT INTO dept_salary_stats (dept, user_count, salary_sum, salary_min, salary_max, salary_p50, salary_p90, salary_p99)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final DeptSalaryStatsAccumulator accumulator;
+    private final JdbcTemplate jdbcTemplate;
+
+    public DeptSalaryStatsTasklet(DeptSalaryStatsAccumulator accumulator, DataSource dataSource) {
+        this.accumulator = accumulator;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+        Map<String, SalaryStats> byDept = accumulator.merged();
+        List<Object[]> rows = new ArrayList<>(byDept.size());
+        byDept.forEach((dept, stats) -> {
+            rows.add(new Object[]{dept, stats.count(), stats.sum(), stats.min(), stats.max(),
+                    stats.quantile(0.5), stats.quantile(0.9), stats.quantile(0.99)});
+            logger.info("Department {}: {} users, salary min={} max={} p50={} p90={} p99={}", dept, stats.count(),
+                    stats.min(), stats.max(), Math.round(stats.quantile(0.5)), Math.round(stats.quantile(0.9)),
+                    Math.round(stats.quantile(0.99)));
+        });
+
+        jdbcTemplate.update("DELETE FROM dept_salary_stats");
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        contribution.incrementWriteCount(rows.size());
+        return RepeatStatus.FINISHED;
+    }
+}
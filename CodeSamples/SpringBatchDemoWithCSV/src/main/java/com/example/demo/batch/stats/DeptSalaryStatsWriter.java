@@ -0,0 +1,34 @@
+package com.example.demo.batch.stats;
+
+import com.example.demo.model.User;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+
+/**
+ * Adds the salary of each user to the accumulator, starting from scratch in every step execution.
+ * Users without a salary are left out.
+ */
+public class DeptSalaryStatsWriter implements ItemWriter<User>, StepExecutionListener {
+
+    private final DeptSalaryStatsAccumulator accumulator;
+
+    public DeptSalaryStatsWriter(DeptSalaryStatsAccumulator accumulator) {
+        this.accumulator = accumulator;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        accumulator.reset();
+    }
+
+    @Override
+    public void write(Chunk<? extends User> users) {
+        for (User user : users) {
+            if (user.getSalary() != null) {
+                accumulator.add(user.getDept(), user.getSalary());
+            }
+        }
+    }
+}
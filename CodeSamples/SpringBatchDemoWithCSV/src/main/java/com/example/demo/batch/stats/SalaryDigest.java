@@ -0,0 +1,198 @@
+package com.example.demo.batch.stats;
+
+import java.util.Arrays;
+
+/**
+ * A merging t-digest (Dunning and Ertl) for estimating quantiles of a stream of values in bounded memory.
+ *
+ * Values are buffered and periodically merged into a sorted list of centroids (mean, weight). The size of
+ * a centroid is limited by the arcsine scale function, so centroids are small near the tails, which keeps
+ * p99 accurate, and there are never more than about compression of them, however many values are added.
+ * Two digests of the same compression can be merged, which gives the same kind of estimate as one digest
+ * over all values: per-thread digests are merged at the end of the step.
+ *
+ * Not thread-safe.
+ */
+public class SalaryDigest {
+
+    private final double compression;
+
+    // Centroids, sorted by mean
+    private double[] means;
+    private double[] weights;
+    private int size;
+    private double totalWeight;
+
+    // Values (or centroids of a merged digest) not merged yet
+    private final double[] bufferMeans;
+    private final double[] bufferWeights;
+    private int buffered;
+    private double bufferedWeight;
+
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public SalaryDigest(double compression) {
+        this.compression = compression;
+        int capacity = (int) Math.ceil(compression) + 10;
+        this.means = new double[capacity];
+        this.weights = new double[capacity];
+        this.bufferMeans = new double[5 * capacity];
+        this.bufferWeights = new double[5 * capacity];
+    }
+
+    public void add(double value) {
+        add(value, 1);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void merge(SalaryDigest other) {
+        other.compress();
+        for (int i = 0; i < other.size; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * The estimated value below which the fraction q of the values fall, NaN when nothing was added.
+     * Interpolates linearly between the centers of adjacent centroids, and between min and max at the ends.
+     */
+    public double quantile(double q) {
+        compress();
+        if (size == 0) {
+            return Double.NaN;
+        }
+        double index = q * totalWeight;
+        double previousValue = min;
+        double previousPosition = 0;
+        double cumulative = 0;
+        for (int i = 0; i < size; i++) {
+            double center = cumulative + weights[i] / 2;
+            if (index <= center) {
+                return interpolate(previousValue, previousPosition, means[i], center, index);
+            }
+            previousValue = means[i];
+            previousPosition = center;
+            cumulative += weights[i];
+        }
+        return interpolate(previousValue, previousPosition, max, totalWeight, index);
+    }
+
+    private static double interpolate(double fromValue, double fromPosition, double toValue, double toPosition,
+                                      double position) {
+        double span = toPosition - fromPosition;
+        return span <= 0 ? toValue : fromValue + (toValue - fromValue) * (position - fromPosition) / span;
+    }
+
+    private void add(double mean, double weight) {
+        if (buffered == bufferMeans.length) {
+            compress();
+        }
+        bufferMeans[buffered] = mean;
+        bufferWeights[buffered] = weight;
+        buffered++;
+        bufferedWeight += weight;
+    }
+
+    /**
+     * Merges the buffer into the centroids: everything is sorted by mean, then each centroid absorbs its
+     * right neighbours while it stays within one unit of the scale function.
+     */
+    private void compress() {
+        if (buffered == 0) {
+            return;
+        }
+        int count = size + buffered;
+        double[] sortedMeans = Arrays.copyOf(means, count);
+        double[] sortedWeights = Arrays.copyOf(weights, count);
+        System.arraycopy(bufferMeans, 0, sortedMeans, size, buffered);
+        System.arraycopy(bufferWeights, 0, sortedWeights, size, buffered);
+        sort(sortedMeans, sortedWeights, 0, count - 1);
+
+        double total = totalWeight + bufferedWeight;
+        size = 0;
+        double before = 0;
+        double limit = total * q(k(0) + 1);
+        double mean = sortedMeans[0];
+        double weight = sortedWeights[0];
+        for (int i = 1; i < count; i++) {
+            if (before + weight + sortedWeights[i] <= limit) {
+                weight += sortedWeights[i];
+                mean += (sortedMeans[i] - mean) * sortedWeights[i] / weight;
+            } else {
+                append(mean, weight);
+                before += weight;
+                limit = total * q(k(before / total) + 1);
+                mean = sortedMeans[i];
+                weight = sortedWeights[i];
+            }
+        }
+        append(mean, weight);
+
+        totalWeight = total;
+        buffered = 0;
+        bufferedWeight = 0;
+    }
+
+    private void append(double mean, double weight) {
+        if (size == means.length) {
+            means = Arrays.copyOf(means, size * 2);
+            weights = Arrays.copyOf(weights, size * 2);
+        }
+        means[size] = mean;
+        weights[size] = weight;
+        size++;
+    }
+
+    // Scale function k1 and its inverse: k(q) = compression / (2 pi) * asin(2q - 1)
+    private double k(double q) {
+        return compression / (2 * Math.PI) * Math.asin(2 * q - 1);
+    }
+
+    private double q(double k) {
+        if (k >= compression / 4) {
+            return 1;
+        }
+        return (Math.sin(k * 2 * Math.PI / compression) + 1) / 2;
+    }
+
+    // Quicksort by mean, moving the weights along
+    private static void sort(double[] keys, double[] values, int from, int to) {
+        while (from < to) {
+            double pivot = keys[(from + to) >>> 1];
+            int i = from;
+            int j = to;
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i++;
+                }
+                while (keys[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(keys, i, j);
+                    swap(values, i, j);
+                    i++;
+                    j--;
+                }
+            }
+            // recurse into the smaller half, loop on the larger one
+            if (j - from < to - i) {
+                sort(keys, values, from, j);
+                from = i;
+            } else {
+                sort(keys, values, i, to);
+                to = j;
+            }
+        }
+    }
+
+    private static void swap(double[] array, int i, int j) {
+        double value = array[i];
+        array[i] = array[j];
+        array[j] = value;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.batch.stats;
+
+/**
+ * Count, sum, min, max and a quantile digest of the salaries of one department. Not thread-safe,
+ * each thread fills its own and they are merged afterwards.
+ */
+public class SalaryStats {
+
+    private long count;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private final SalaryDigest digest;
+
+    public SalaryStats(double compression) {
+        this.digest = new SalaryDigest(compression);
+    }
+
+    public void add(double salary) {
+        count++;
+        sum += salary;
+        min = Math.min(min, salary);
+        max = Math.max(max, salary);
+        digest.add(salary);
+    }
+
+    public void merge(SalaryStats other) {
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        digest.merge(other.digest);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double sum() {
+        return sum;
+    }
+
+    public double min() {
+        return min;
+    }
+
+    public double max() {
+        return max;
+    }
+
+    public double quantile(double q) {
+        return digest.quantile(q);
+    }
+}
@@ -1,55 +1,122 @@
 package com.example.demo.config;
 
 import com.example.demo.batch.DBWriter;
+import com.example.demo.batch.HeaderFieldSetMapper;
+import com.example.demo.batch.ParallelChunkOperations;
 import com.example.demo.batch.Processor;
+import com.example.demo.batch.UserBatchUpsertWriter;
+import com.example.demo.batch.stats.DeptSalaryStatsAccumulator;
+import com.example.demo.batch.stats.DeptSalaryStatsTasklet;
+import com.example.demo.batch.stats.DeptSalaryStatsWriter;
 import com.example.demo.model.User;
+import com.example.demo.service.DepartmentDirectory;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
 import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.database.JdbcCursorItemReader;
+import org.springframework.batch.item.database.builder.JdbcCursorItemReaderBuilder;
 import org.springframework.batch.item.file.FlatFileItemReader;
 import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
+import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.batch.item.support.SynchronizedItemStreamReader;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.transaction.PlatformTransactionManager;
 
+import javax.sql.DataSource;
+
 @Configuration
 public class SpringBatchConfig {
     @Value("${input.file.name}")
     private String inputFileName;
 
+    @Value("${batch.writer.mode:jpa}")
+    private String writerMode;
+
+    @Value("${batch.writer.log-chunks:true}")
+    private boolean logChunks;
+
+    @Value("${batch.chunk.size:100}")
+    private int chunkSize;
+
+    @Value("${batch.parallel.enabled:false}")
+    private boolean parallel;
+
+    @Value("${batch.parallel.threads:4}")
+    private int threads;
+
+    @Value("${batch.parallel.virtual-threads:false}")
+    private boolean virtualThreads;
+
+    @Value("${batch.salary-stats.chunk-size:1000}")
+    private int salaryStatsChunkSize;
+
+    @Value("${batch.salary-stats.compression:200}")
+    private double salaryStatsCompression;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private DepartmentDirectory departmentDirectory;
+
+    /**
+     * Columns are found by their name in the header line, so they may come in any order and extra ones are ignored.
+     */
     @Bean
     public FlatFileItemReader<User> reader() {
+        DelimitedLineTokenizer tokenizer = new DelimitedLineTokenizer(",");
+        HeaderFieldSetMapper<User> fieldSetMapper = new HeaderFieldSetMapper<>(tokenizer, ",", User::new)
+                .column("id", (user, fieldSet, i) -> user.setId(fieldSet.readInt(i)))
+                .column("name", (user, fieldSet, i) -> user.setName(fieldSet.readString(i)))
+                .column("dept", (user, fieldSet, i) -> user.setDept(fieldSet.readString(i)))
+                .column("salary", (user, fieldSet, i) -> user.setSalary(fieldSet.readDouble(i)));
         return new FlatFileItemReaderBuilder<User>()
                 .name("userItemReader")
                 .resource(new ClassPathResource(inputFileName))
-                .delimited()
-                .delimiter(",")
-                .names("id", "name", "dept", "salary")
+                .saveState(!parallel) // the position is meaningless when several threads read
+                .lineTokenizer(tokenizer)
+                .fieldSetMapper(fieldSetMapper)
                 .linesToSkip(1)
-                .fieldSetMapper(fieldSet -> {
-                    User user = new User();
-                    user.setId(fieldSet.readInt("id"));
-                    user.setName(fieldSet.readString("name"));
-                    user.setDept(fieldSet.readString("dept"));
-                    user.setSalary(fieldSet.readDouble("salary"));
-                    return user;
-                })
+                .skippedLinesCallback(fieldSetMapper) // resolves the column positions from the header
                 .build();
     }
 
+    /**
+     * In parallel mode the threads share one reader, so read() is synchronized around it.
+     */
+    private <T> ItemStreamReader<T> stepReader(ItemStreamReader<T> reader) {
+        if (!parallel) {
+            return reader;
+        }
+        SynchronizedItemStreamReader<T> synchronizedReader = new SynchronizedItemStreamReader<>();
+        synchronizedReader.setDelegate(reader);
+        return synchronizedReader;
+    }
+
     @Bean
     public Processor processor() {
-        return new Processor();
+        return new Processor(departmentDirectory);
     }
 
+    /**
+     * jdbc writes each chunk with one batched MERGE, jpa goes through UserRepository.saveAll.
+     */
     @Bean
     public ItemWriter<User> writer() {
+        if ("jdbc".equals(writerMode)) {
+            return new UserBatchUpsertWriter(dataSource, logChunks);
+        }
         return new DBWriter();
     }
 
@@ -61,11 +128,78 @@ public class SpringBatchConfig {
     @Bean
     public Step step(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
         // The StepBuilder is used to create a step
-        return new StepBuilder("step1", jobRepository) // The name of the step is step1.
-                .<User, User>chunk(2, transactionManager) // Process 2 records at a time
-                .reader(reader()) // Reads data in each chunk using the reader() method
+        SimpleStepBuilder<User, User> builder = new StepBuilder("step1", jobRepository) // The name of the step is step1.
+                .<User, User>chunk(chunkSize, transactionManager) // Process batch.chunk.size records at a time
+                .reader(stepReader(reader())) // Reads data in each chunk using the reader() method
                 .processor(processor()) // Processes the data in each chunk using the processor() method
-                .writer(writer()) // Writes the data in each chunk using the writer() method
+                .writer(writer()); // Writes the data in each chunk using the writer() method
+        if (parallel) {
+            builder.stepOperations(parallelChunkOperations("step1-")); // Each thread reads, processes and writes its own chunks
+        }
+        return builder.build();
+    }
+
+    /**
+     * batch.parallel.threads platform or virtual threads, each running one chunk after the other. Set as the
+     * step operations rather than with taskExecutor(...), which would allow at most four chunks in flight.
+     */
+    private ParallelChunkOperations parallelChunkOperations(String threadNamePrefix) {
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        taskExecutor.setVirtualThreads(virtualThreads);
+        taskExecutor.setConcurrencyLimit(threads);
+        return new ParallelChunkOperations(taskExecutor, threads);
+    }
+
+    // Salary statistics
+    @Bean
+    public DeptSalaryStatsAccumulator deptSalaryStatsAccumulator() {
+        return new DeptSalaryStatsAccumulator(salaryStatsCompression);
+    }
+
+    /**
+     * Streams the loaded users back from the user table.
+     */
+    @Bean
+    public JdbcCursorItemReader<User> salaryReader() {
+        return new JdbcCursorItemReaderBuilder<User>()
+                .name("salaryReader")
+                .dataSource(dataSource)
+                .sql("SELECT dept, salary FROM \"user\"")
+                .fetchSize(salaryStatsChunkSize)
+                .saveState(false) // the statistics are in memory, a restart starts over
+                .rowMapper((rs, rowNum) -> {
+                    User user = new User();
+                    user.setDept(rs.getString("dept"));
+                    user.setSalary(rs.getObject("salary", Double.class));
+                    return user;
+                })
+                .build();
+    }
+
+    /**
+     * Adds every salary to the per-thread sketches of DeptSalaryStatsAccumulator. It runs again on a restart,
+     * because the statistics of a completed run are not kept anywhere but in memory.
+     */
+    @Bean
+    public Step salaryStatsStep(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
+        SimpleStepBuilder<User, User> builder = new StepBuilder("salaryStatsStep", jobRepository)
+                .<User, User>chunk(salaryStatsChunkSize, transactionManager)
+                .reader(stepReader(salaryReader()))
+                .writer(new DeptSalaryStatsWriter(deptSalaryStatsAccumulator()))
+                .allowStartIfComplete(true);
+        if (parallel) {
+            builder.stepOperations(parallelChunkOperations("salaryStatsStep-"));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Merges the sketches and writes dept_salary_stats.
+     */
+    @Bean
+    public Step salaryStatsWriteStep(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
+        return new StepBuilder("salaryStatsWriteStep", jobRepository)
+                .tasklet(new DeptSalaryStatsTasklet(deptSalaryStatsAccumulator(), dataSource), transactionManager)
                 .build();
     }
 
@@ -73,6 +207,8 @@ public class SpringBatchConfig {
     public Job job(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
         return new JobBuilder("demoJob", jobRepository)
                 .start(step(jobRepository, transactionManager))
+                .next(salaryStatsStep(jobRepository, transactionManager))
+                .next(salaryStatsWriteStep(jobRepository, transactionManager))
                 .build();
     }
 }
\ No newline at end of file
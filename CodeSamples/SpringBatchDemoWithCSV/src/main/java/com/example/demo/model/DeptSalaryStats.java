@@ -0,0 +1,36 @@
+package com.example.demo.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Salary statistics of one department, recomputed by every run of demoJob.
+ * The percentiles are estimates (t-digest), the other columns are exact.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "dept_salary_stats")
+public class DeptSalaryStats {
+    @Id
+    private String dept;
+    private long userCount;
+    private double salarySum;
+    private double salaryMin;
+    private double salaryMax;
+    // the naming strategy does not split a letter from a digit (salaryp50)
+    @Column(name = "salary_p50")
+    private double salaryP50;
+    @Column(name = "salary_p90")
+    private double salaryP90;
+    @Column(name = "salary_p99")
+    private double salaryP99;
+}
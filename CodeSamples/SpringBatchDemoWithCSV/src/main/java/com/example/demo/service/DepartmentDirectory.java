@@ -0,0 +1,176 @@
+package com.example.demo.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Department names by numeric code ("001" is 1), loaded from a CSV file (code,name with a header line)
+ * or from a table (SELECT code, name FROM ...).
+ *
+ * The names are held in an array indexed by code that is never modified after it is built. A refresh
+ * builds a new array and swaps it in with one atomic write, so any number of threads can look up names
+ * without locking and each lookup sees either the old or the new dictionary, never a mix.
+ */
+@Service
+public class DepartmentDirectory {
+
+    private static final Logger logger = LoggerFactory.getLogger(DepartmentDirectory.class);
+
+    // Codes are small numbers, this only guards against a typo allocating a huge array
+    private static final int MAX_CODE = 1_000_000;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${dept.source:file}")
+    private String source;
+
+    @Value("${dept.file:departments.csv}")
+    private String fileName;
+
+    @Value("${dept.table:department}")
+    private String tableName;
+
+    @Value("${dept.refresh-interval-ms:0}")
+    private long refreshIntervalMillis;
+
+    private final AtomicReference<String[]> names = new AtomicReference<>(new String[0]);
+
+    private ScheduledExecutorService refresher;
+
+    @PostConstruct
+    void start() {
+        refresh();
+        if (refreshIntervalMillis > 0) {
+            refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "department-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            refresher.scheduleWithFixedDelay(() -> {
+                try {
+                    refresh();
+                } catch (RuntimeException e) {
+                    logger.warn("Could not refresh the departments, keeping the current ones", e); // retried next time
+                }
+            }, refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * The name of the department with the given code, or null when the code is unknown or not a number.
+     */
+    public String name(String code) {
+        int index = index(code);
+        String[] current = names.get();
+        return index >= 0 && index < current.length ? current[index] : null;
+    }
+
+    /**
+     * The numeric value of a code such as "001", or -1 when it is not one. Parsed by hand, so a lookup
+     * allocates nothing.
+     */
+    public static int index(String code) {
+        if (code == null || code.isEmpty() || code.length() > 9) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < code.length(); i++) {
+            int digit = code.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * One more than the highest code, i.e. the size of an array indexed by code.
+     */
+    public int size() {
+        return names.get().length;
+    }
+
+    /**
+     * Reloads the departments and swaps them in if they changed.
+     */
+    public void refresh() {
+        Map<Integer, String> loaded = "table".equals(source) ? loadTable() : loadFile();
+        int size = loaded.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1;
+        String[] updated = new String[size];
+        loaded.forEach((code, name) -> updated[code] = name);
+
+        String[] previous = names.get();
+        if (!Arrays.equals(previous, updated)) {
+            names.set(updated);
+            logger.info("Loaded {} departments from {}", loaded.size(), "table".equals(source) ? tableName : fileName);
+        }
+    }
+
+    private Map<Integer, String> loadFile() {
+        Resource resource = new ClassPathResource(fileName);
+        Map<Integer, String> departments = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line = reader.readLine(); // header
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                int comma = line.indexOf(',');
+                if (comma < 0) {
+                    throw new IllegalStateException("Expected code,name in " + fileName + " but found: " + line);
+                }
+                put(departments, line.substring(0, comma).trim(), line.substring(comma + 1).trim());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + fileName, e);
+        }
+        return departments;
+    }
+
+    private Map<Integer, String> loadTable() {
+        Map<Integer, String> departments = new HashMap<>();
+        RowCallbackHandler department = row -> put(departments, row.getString(1).trim(), row.getString(2));
+        new JdbcTemplate(dataSource).query("SELECT code, name FROM " + tableName, department);
+        return departments;
+    }
+
+    private static void put(Map<Integer, String> departments, String code, String name) {
+        int index = index(code);
+        if (index < 0 || index > MAX_CODE) {
+            throw new IllegalStateException("Department code must be a number up to " + MAX_CODE + ": " + code);
+        }
+        departments.put(index, name);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.demo;
+
+import com.example.demo.batch.ParallelChunkOperations;
+import com.example.demo.service.DepartmentDirectory;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs demoJob (started by SpringBatchApplication) with 8 threads over users-parallel.csv and checks
+ * that every input row ends up in the user table exactly once, unchanged apart from the department name,
+ * and that ParallelChunkOperations really keeps 8 chunks in flight.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:parallel_step_test",
+		"input.file.name=users-parallel.csv",
+		"batch.chunk.size=7",
+		"batch.parallel.enabled=true",
+		"batch.parallel.threads=8"
+})
+class ParallelStepTests {
+
+	@Autowired
+	private JobExplorer jobExplorer;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private DepartmentDirectory departmentDirectory;
+
+	@Test
+	void userTableMatchesInput() throws Exception {
+		JobInstance jobInstance = jobExplorer.getLastJobInstance("demoJob");
+		JobExecution jobExecution = jobExplorer.getLastJobExecution(jobInstance);
+		assertEquals(BatchStatus.COMPLETED, jobExecution.getStatus());
+
+		List<String> expected = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new ClassPathResource("users-parallel.csv").getInputStream(), StandardCharsets.UTF_8))) {
+			String line = reader.readLine(); // header
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.split(",");
+				expected.add(row(Integer.parseInt(fields[0]), fields[1], departmentDirectory.name(fields[2]),
+						Double.parseDouble(fields[3])));
+			}
+		}
+		List<String> actual = jdbcTemplate.query("SELECT id, name, dept, salary FROM \"user\" ORDER BY id",
+				(rs, rowNum) -> row(rs.getInt("id"), rs.getString("name"), rs.getString("dept"), rs.getDouble("salary")));
+
+		assertEquals(2000, expected.size());
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	void runsAsManyChunksAtOnceAsThreads() {
+		CyclicBarrier barrier = new CyclicBarrier(8);
+		AtomicInteger chunks = new AtomicInteger();
+		new ParallelChunkOperations(new SimpleAsyncTaskExecutor(), 8).iterate(context -> {
+			int chunk = chunks.incrementAndGet();
+			if (chunk <= 8) {
+				barrier.await(10, TimeUnit.SECONDS); // times out unless the first 8 chunks run at the same time
+			}
+			return RepeatStatus.continueIf(chunk < 80);
+		});
+		assertTrue(chunks.get() >= 80);
+	}
+
+	private static String row(int id, String name, String dept, double salary) {
+		return id + "," + name + "," + dept + "," + salary;
+	}
+
+}
@@ -0,0 +1,93 @@
+package com.example.demo;
+
+import com.example.demo.service.DepartmentDirectory;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs demoJob (started by SpringBatchApplication) in parallel mode over users-parallel.csv and compares
+ * dept_salary_stats with the statistics computed exactly from the file: count, sum, min and max must
+ * match, the t-digest percentiles must lie within one percentile rank of the exact ones.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:salary_stats_step_test",
+		"input.file.name=users-parallel.csv",
+		"batch.parallel.enabled=true",
+		"batch.parallel.threads=4",
+		"batch.salary-stats.chunk-size=50"
+})
+class SalaryStatsStepTests {
+
+	private static final double RANK_TOLERANCE = 0.01;
+
+	@Autowired
+	private JobExplorer jobExplorer;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private DepartmentDirectory departmentDirectory;
+
+	@Test
+	void statsMatchTheInput() throws Exception {
+		JobExecution jobExecution = jobExplorer.getLastJobExecution(jobExplorer.getLastJobInstance("demoJob"));
+		assertEquals(BatchStatus.COMPLETED, jobExecution.getStatus());
+
+		Map<String, List<Double>> salaries = new TreeMap<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new ClassPathResource("users-parallel.csv").getInputStream(), StandardCharsets.UTF_8))) {
+			String line = reader.readLine(); // header
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.split(",");
+				salaries.computeIfAbsent(departmentDirectory.name(fields[2]), dept -> new ArrayList<>())
+						.add(Double.parseDouble(fields[3]));
+			}
+		}
+
+		List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT * FROM dept_salary_stats ORDER BY dept");
+		assertEquals(salaries.keySet(), rows.stream().map(row -> (String) row.get("dept"))
+				.collect(Collectors.toCollection(TreeSet::new)));
+		for (Map<String, Object> row : rows) {
+			String dept = (String) row.get("dept");
+			List<Double> sorted = salaries.get(dept).stream().sorted().toList();
+
+			assertEquals(sorted.size(), ((Number) row.get("user_count")).longValue(), dept);
+			assertEquals(sorted.stream().mapToDouble(Double::doubleValue).sum(), ((Number) row.get("salary_sum")).doubleValue(), 1e-6, dept);
+			assertEquals(sorted.get(0), ((Number) row.get("salary_min")).doubleValue(), dept);
+			assertEquals(sorted.get(sorted.size() - 1), ((Number) row.get("salary_max")).doubleValue(), dept);
+			assertQuantile(sorted, 0.5, ((Number) row.get("salary_p50")).doubleValue(), dept);
+			assertQuantile(sorted, 0.9, ((Number) row.get("salary_p90")).doubleValue(), dept);
+			assertQuantile(sorted, 0.99, ((Number) row.get("salary_p99")).doubleValue(), dept);
+		}
+	}
+
+	// Between the exact values at q - tolerance and q + tolerance
+	private static void assertQuantile(List<Double> sorted, double q, double estimate, String dept) {
+		int n = sorted.size();
+		double low = sorted.get(Math.max(0, (int) Math.floor((q - RANK_TOLERANCE) * n)));
+		double high = sorted.get(Math.min(n - 1, (int) Math.ceil((q + RANK_TOLERANCE) * n)));
+		assertTrue(estimate >= low && estimate <= high,
+				dept + " p" + Math.round(q * 100) + " = " + estimate + ", expected between " + low + " and " + high);
+	}
+
+}
@@ -0,0 +1,55 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Loads the departments from a table (dept.source=table) filled by departments-table.sql instead of
+ * departments.csv, and reloads them on refresh.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:department_table_test",
+		"spring.sql.init.mode=always",
+		"spring.sql.init.schema-locations=classpath:departments-table.sql",
+		"dept.source=table",
+		"dept.table=department"
+})
+class DepartmentDirectoryTableTests {
+
+	@Autowired
+	private DepartmentDirectory departmentDirectory;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void namesComeFromTheTable() {
+		assertEquals("Engineering", departmentDirectory.name("001"));
+		assertEquals("Support", departmentDirectory.name("2"));
+		assertEquals("Finance ", departmentDirectory.name("010"));
+		assertNull(departmentDirectory.name("003")); // only in departments.csv
+		assertEquals(11, departmentDirectory.size());
+	}
+
+	@Test
+	void refreshPicksUpChangedRows() {
+		jdbcTemplate.update("UPDATE department SET name = 'Platform' WHERE code = '001'");
+		jdbcTemplate.update("INSERT INTO department (code, name) VALUES ('004', 'Legal')");
+		try {
+			departmentDirectory.refresh();
+
+			assertEquals("Platform", departmentDirectory.name("001"));
+			assertEquals("Legal", departmentDirectory.name("004"));
+		} finally {
+			jdbcTemplate.update("UPDATE department SET name = 'Engineering' WHERE code = '001'");
+			jdbcTemplate.update("DELETE FROM department WHERE code = '004'");
+			departmentDirectory.refresh();
+		}
+	}
+
+}
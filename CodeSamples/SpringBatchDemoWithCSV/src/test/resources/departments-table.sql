@@ -0,0 +1,2 @@
+CREATE TABLE department (code VARCHAR(10) NOT NULL PRIMARY KEY, name VARCHAR(100) NOT NULL);
+INSERT INTO department (code, name) VALUES ('001', 'Engineering'), ('002', 'Support'), ('010', 'Finance ');
@@ -0,0 +1,63 @@
+package com.example.batchprocessor.benchmarks;
+
+import com.example.batchprocessor.model.Transaction;
+import com.example.batchprocessor.tools.TransactionDataGenerator;
+import com.example.batchprocessor.tools.TransactionDataGenerator.Options;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.SplittableRandom;
+
+/**
+ * Generated, reproducible input for the benchmarks. About 10% of the amounts are not positive.
+ */
+final class BenchmarkData {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    // Part of the file name, raise it whenever the generated rows change (format, accounts, seed, ...)
+    private static final int CSV_VERSION = 2;
+    private static final int ACCOUNTS = 10_000;
+    private static final double INVALID_FRACTION = 0.1;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Writes a CSV in the format of sample-transactions.csv, reusing it when the same version was
+     * generated before.
+     */
+    static Path csv(int rows) throws IOException {
+        long seed = rows;
+        Path path = Path.of(System.getProperty("java.io.tmpdir"),
+                "benchmark-transactions-v" + CSV_VERSION + "-" + rows + "-seed" + seed + ".csv");
+        if (Files.exists(path)) {
+            return path;
+        }
+        Path tmp = Files.createTempFile(path.getParent(), "benchmark-transactions", ".tmp");
+        TransactionDataGenerator.generate(Options.defaults(rows).withAccounts(ACCOUNTS).withInvalidFraction(INVALID_FRACTION).withSeed(seed), tmp);
+        return Files.move(tmp, path);
+    }
+
+    static Transaction transaction(SplittableRandom random, int id) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId((long) id);
+        transaction.setAccountNumber(accountNumber(random));
+        transaction.setAmount(amount(random));
+        transaction.setType(random.nextBoolean() ? "credit" : "debit");
+        transaction.setTimestamp(Date.from(START.plusSeconds(id).atZone(ZoneId.systemDefault()).toInstant()));
+        return transaction;
+    }
+
+    private static String accountNumber(SplittableRandom random) {
+        return String.valueOf(100_000_000 + random.nextInt(10_000));
+    }
+
+    private static double amount(SplittableRandom random) {
+        return (random.nextInt(110_000) - 10_000) / 100.0;
+    }
+}
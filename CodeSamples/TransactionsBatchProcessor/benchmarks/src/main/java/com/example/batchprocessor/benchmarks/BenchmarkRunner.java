@@ -0,0 +1,26 @@
+package com.example.batchprocessor.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the JMH benchmarks and, unless other result options are given, writes the results to
+ * jmh-result.json so runs of different releases can be compared.
+ * Any JMH option can be passed, e.g. {@code java -jar benchmarks.jar CsvReader -p rows=1000}.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        if (!options.contains("-rf")) {
+            options.addAll(List.of("-rf", "json"));
+        }
+        if (!options.contains("-rff")) {
+            options.addAll(List.of("-rff", "jmh-result.json"));
+        }
+        Main.main(options.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.batchprocessor.benchmarks;
+
+import com.example.batchprocessor.batch.reader.CSVReader;
+import com.example.batchprocessor.batch.reader.MappedTransactionItemReader;
+import com.example.batchprocessor.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads and parses a whole generated input file per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class CsvReaderBenchmark {
+
+    @Param({"1000", "1000000", "10000000"})
+    private int rows;
+
+    @Param({"flatfile", "mapped"})
+    private String reader;
+
+    private Path input;
+
+    @Setup
+    public void generateInput() throws Exception {
+        input = BenchmarkData.csv(rows);
+    }
+
+    @Benchmark
+    public long readAll(Blackhole blackhole) throws Exception {
+        ItemStreamReader<Transaction> itemReader = "mapped".equals(reader)
+                ? new MappedTransactionItemReader(input)
+                : new CSVReader().transactionReader(new FileSystemResource(input));
+        long count = 0;
+        itemReader.open(new ExecutionContext());
+        try {
+            Transaction transaction;
+            while ((transaction = itemReader.read()) != null) {
+                blackhole.consume(transaction);
+                count++;
+            }
+        } finally {
+            itemReader.close();
+        }
+        return count;
+    }
+}
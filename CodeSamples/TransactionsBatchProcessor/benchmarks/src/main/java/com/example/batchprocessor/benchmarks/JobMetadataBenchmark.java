@@ -0,0 +1,91 @@
+package com.example.batchprocessor.benchmarks;
+
+import com.example.batchprocessor.SpringBatchApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the whole classifyTransactionJob over a generated file, with the job metadata in the main database
+ * or in memory. Small chunks make the per-commit metadata updates a larger share of the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class JobMetadataBenchmark {
+
+    @Param({"1000000"})
+    private int rows;
+
+    @Param({"database", "memory"})
+    private String metadataMode;
+
+    @Param({"100", "1000"})
+    private int chunkSize;
+
+    private ConfigurableApplicationContext context;
+    private JobLauncher jobLauncher;
+    private JobExplorer jobExplorer;
+    private Job job;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup
+    public void startContext() throws Exception {
+        Path csv = BenchmarkData.csv(rows);
+        context = new SpringApplicationBuilder(SpringBatchApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("logging.level.root=WARN",
+                        "input.files=" + csv.toUri(),
+                        "batch.metadata.mode=" + metadataMode,
+                        "batch.chunk.size=" + chunkSize,
+                        "batch.writer.mode=jdbc")
+                .run(); // SpringBatchApplication runs the job once on startup, which doubles as warm-up
+        jobLauncher = context.getBean(JobLauncher.class);
+        jobExplorer = context.getBean(JobExplorer.class);
+        job = context.getBean(Job.class);
+        jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+    }
+
+    @Setup(Level.Iteration)
+    public void emptyTables() {
+        jdbcTemplate.execute("TRUNCATE TABLE successful_transaction");
+        jdbcTemplate.execute("TRUNCATE TABLE failed_transaction");
+    }
+
+    @TearDown
+    public void closeContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public BatchStatus runJob() throws Exception {
+        return jobLauncher.run(job, new JobParametersBuilder(jobExplorer).getNextJobParameters(job).toJobParameters())
+                .getStatus();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.batchprocessor.benchmarks;
+
+import com.example.batchprocessor.batch.reader.CSVReader;
+import com.example.batchprocessor.batch.reader.MappedTransactionItemReader;
+import com.example.batchprocessor.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a multi-gigabyte input file once per operation, to compare the sustained throughput of the
+ * FlatFileItemReader built by CSVReader with MappedTransactionItemReader. The default 100 million rows
+ * are about 5 GB; MB/s is the size printed by the setup divided by the reported time.
+ * The file is generated on the first run and then reused, e.g.
+ * {@code java -jar benchmarks.jar ReaderThroughput -p rows=20000000}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1) // warms up the JIT and the page cache
+@Measurement(iterations = 3)
+@Fork(1)
+public class ReaderThroughputBenchmark {
+
+    @Param({"100000000"})
+    private int rows;
+
+    @Param({"flatfile", "mapped"})
+    private String reader;
+
+    private Path input;
+
+    @Setup
+    public void generateInput() throws Exception {
+        input = BenchmarkData.csv(rows);
+        System.out.printf("%n%s: %,d MB%n", input, Files.size(input) / (1024 * 1024));
+    }
+
+    @Benchmark
+    public long readAll(Blackhole blackhole) throws Exception {
+        ItemStreamReader<Transaction> itemReader = "mapped".equals(reader)
+                ? new MappedTransactionItemReader(input)
+                : new CSVReader().transactionReader(new FileSystemResource(input));
+        long count = 0;
+        itemReader.open(new ExecutionContext());
+        try {
+            Transaction transaction;
+            while ((transaction = itemReader.read()) != null) {
+                blackhole.consume(transaction);
+                count++;
+            }
+        } finally {
+            itemReader.close();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.batchprocessor.benchmarks;
+
+import com.example.batchprocessor.SpringBatchApplication;
+import com.example.batchprocessor.batch.processor.TransactionProcessor;
+import com.example.batchprocessor.batch.processor.rule.TransactionRules;
+import com.example.batchprocessor.batch.writer.ClassifierTransactionItemWriter;
+import com.example.batchprocessor.batch.writer.TransactionBatchInsertWriter;
+import com.example.batchprocessor.batch.writer.TransactionItemWriter;
+import com.example.batchprocessor.model.FailedTransaction;
+import com.example.batchprocessor.model.SuccessfulTransaction;
+import com.example.batchprocessor.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.batchprocessor.batch.writer.ClassifierTransactionItemWriter.delegate;
+
+/**
+ * Writes a whole dataset of classified transactions into the embedded H2 database per operation,
+ * one transaction per chunk as in the step. The tables are emptied before every iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class TransactionItemWriterBenchmark {
+
+    @Param({"1000", "1000000", "10000000"})
+    private int rows;
+
+    @Param({"jpa", "jdbc"})
+    private String writer;
+
+    @Param({"1000"})
+    private int chunkSize;
+
+    private ConfigurableApplicationContext context;
+    private ItemWriter<Transaction> itemWriter;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionProcessor processor;
+
+    @Setup
+    public void startContext() {
+        context = new SpringApplicationBuilder(SpringBatchApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.batch.job.enabled=false", "logging.level.root=WARN")
+                .run();
+        DataSource dataSource = context.getBean(DataSource.class);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        processor = new TransactionProcessor(TransactionRules.compile(0.0, null, Set.of(), 0, null, null));
+
+        if ("jdbc".equals(writer)) {
+            itemWriter = new ClassifierTransactionItemWriter(Map.of(
+                    SuccessfulTransaction.class, delegate(TransactionBatchInsertWriter.successfulTransactions(dataSource)),
+                    FailedTransaction.class, delegate(TransactionBatchInsertWriter.failedTransactions(dataSource))));
+        } else {
+            TransactionItemWriter jpaWriter = new TransactionItemWriter();
+            context.getAutowireCapableBeanFactory().autowireBean(jpaWriter);
+            itemWriter = jpaWriter;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void emptyTables() {
+        jdbcTemplate.execute("TRUNCATE TABLE successful_transaction");
+        jdbcTemplate.execute("TRUNCATE TABLE failed_transaction");
+    }
+
+    @TearDown
+    public void closeContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public int writeAll() throws Exception {
+        SplittableRandom random = new SplittableRandom(rows);
+        int written = 0;
+        while (written < rows) {
+            // fresh entities for every chunk, JPA would merge instances that were saved before
+            Chunk<Transaction> chunk = new Chunk<>();
+            for (int i = 0; i < chunkSize && written < rows; i++, written++) {
+                chunk.add(processor.process(BenchmarkData.transaction(random, written + 1)));
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                try {
+                    itemWriter.write(chunk);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+        return written;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.batchprocessor.benchmarks;
+
+import com.example.batchprocessor.batch.processor.TransactionProcessor;
+import com.example.batchprocessor.batch.processor.rule.TransactionRules;
+import com.example.batchprocessor.batch.processor.velocity.VelocityScoringProcessor;
+import com.example.batchprocessor.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.item.ItemProcessor;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classifies one transaction per operation, cycling through a pre-generated set of transactions
+ * so the input does not have to fit in memory for large datasets. Every pass moves the ids and
+ * timestamps on, so velocity scoring sees new events in time order rather than the same ones again.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionProcessorBenchmark {
+
+    private static final int SAMPLE_SIZE = 4096;
+
+    // default: the amount > 0 rule only, all: every rule enabled
+    @Param({"default", "all"})
+    private String rules;
+
+    // true: wrapped by VelocityScoringProcessor with the default batch.velocity.* settings
+    @Param({"false", "true"})
+    private boolean velocity;
+
+    private ItemProcessor<Transaction, Transaction> processor;
+    private Transaction[] transactions;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        TransactionRules compiled = "all".equals(rules)
+                ? TransactionRules.compile(0.0, 1_000.0, Set.of("credit", "debit"), 9, null, null)
+                : TransactionRules.compile(0.0, null, Set.of(), 0, null, null);
+        TransactionProcessor transactionProcessor = new TransactionProcessor(compiled);
+        processor = velocity ? new VelocityScoringProcessor(transactionProcessor, 5, Duration.ofSeconds(60)) : transactionProcessor;
+
+        SplittableRandom random = new SplittableRandom(42);
+        transactions = new Transaction[SAMPLE_SIZE];
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            transactions[i] = BenchmarkData.transaction(random, i + 1);
+        }
+    }
+
+    @Benchmark
+    public Transaction process() throws Exception {
+        Transaction transaction = transactions[next];
+        next = (next + 1) & (SAMPLE_SIZE - 1);
+        if (next == 0) {
+            nextPass();
+        }
+        return processor.process(transaction);
+    }
+
+    private void nextPass() {
+        for (Transaction transaction : transactions) {
+            transaction.setTransactionId(transaction.getTransactionId() + SAMPLE_SIZE);
+            transaction.getTimestamp().setTime(transaction.getTimestamp().getTime() + SAMPLE_SIZE * 1000L);
+        }
+    }
+}
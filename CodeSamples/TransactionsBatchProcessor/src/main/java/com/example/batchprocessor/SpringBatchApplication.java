@@ -1,7 +1,11 @@
 package com.example.batchprocessor;
 
+import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
 import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.explore.JobExplorer;
 import org.springframework.batch.core.launch.JobLauncher;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
@@ -13,12 +17,24 @@ public class SpringBatchApplication implements CommandLineRunner {
 	@Autowired
 	private JobLauncher jobLauncher;
 
+	@Autowired
+	private JobExplorer jobExplorer;
+
 	@Autowired
 	private Job job;
 
+	/**
+	 * Restarts the last run if it failed or was stopped, otherwise starts a new instance with the next run.id.
+	 */
 	@Override
 	public void run(String... args) throws Exception {
-		jobLauncher.run(job, new JobParametersBuilder().toJobParameters());
+		JobInstance lastInstance = jobExplorer.getLastJobInstance(job.getName());
+		JobExecution lastExecution = lastInstance == null ? null : jobExplorer.getLastJobExecution(lastInstance);
+		if (lastExecution != null && (lastExecution.getStatus() == BatchStatus.FAILED || lastExecution.getStatus() == BatchStatus.STOPPED)) {
+			jobLauncher.run(job, lastExecution.getJobParameters());
+			return;
+		}
+		jobLauncher.run(job, new JobParametersBuilder(jobExplorer).getNextJobParameters(job).toJobParameters());
 	}
 
 	public static void main(String[] args) {
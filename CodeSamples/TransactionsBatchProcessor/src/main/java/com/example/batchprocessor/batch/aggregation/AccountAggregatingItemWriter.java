@@ -0,0 +1,127 @@
+package com.example.batchprocessor.batch.aggregation;
+
+import com.example.batchprocessor.model.SuccessfulTransaction;
+import com.example.batchprocessor.model.Transaction;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.ItemWriter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Passes every chunk on to the delegate and folds its successful transactions into the
+ * accumulator once the chunk has committed. Items are staged per thread until then, so a
+ * rolled back or rescanned chunk is never counted twice. Register it as a ChunkListener
+ * on every step that uses it.
+ *
+ * The totals of each step execution are also kept in its ExecutionContext under
+ * accountAggregatingWriter.totals, committed together with the chunk, so that AccountSummaryTasklet
+ * can rebuild the accumulator after a restart. They hold one entry per account the step has seen.
+ */
+public class AccountAggregatingItemWriter implements ItemStreamWriter<Transaction>, ChunkListener {
+
+    public static final String TOTALS = "accountAggregatingWriter.totals";
+
+    private final ItemWriter<Transaction> delegate;
+    private final AccountSummaryAccumulator accumulator;
+    private final ThreadLocal<List<Transaction>> staged = ThreadLocal.withInitial(ArrayList::new);
+
+    // per step execution, the committed totals in the format of AccountSummaryAccumulator.totals
+    private final Map<Long, HashMap<String, double[]>> stepTotals = new ConcurrentHashMap<>();
+
+    public AccountAggregatingItemWriter(ItemWriter<Transaction> delegate, AccountSummaryAccumulator accumulator) {
+        this.delegate = delegate;
+        this.accumulator = accumulator;
+    }
+
+    @Override
+    public void write(Chunk<? extends Transaction> chunk) throws Exception {
+        delegate.write(chunk);
+        List<Transaction> pending = staged.get();
+        for (Transaction transaction : chunk) {
+            if (transaction instanceof SuccessfulTransaction) {
+                pending.add(transaction);
+            }
+        }
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        staged.get().clear();
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        List<Transaction> pending = staged.get();
+        Map<String, double[]> chunkTotals = AccountSummaryAccumulator.totals(pending);
+        accumulator.fold(chunkTotals);
+        add(stepTotals(), chunkTotals);
+        pending.clear();
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        staged.get().clear();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void open(ExecutionContext executionContext) {
+        Map<String, double[]> totals = stepTotals();
+        totals.clear();
+        if (executionContext.containsKey(TOTALS)) { // a restart continues the totals
+            totals.putAll((Map<String, double[]>) executionContext.get(TOTALS));
+        }
+        if (delegate instanceof ItemStream stream) {
+            stream.open(executionContext);
+        }
+    }
+
+    /**
+     * Called before the chunk commits, so the totals saved here include the items of the chunk being written.
+     */
+    @Override
+    public void update(ExecutionContext executionContext) {
+        HashMap<String, double[]> totals = new HashMap<>();
+        add(totals, stepTotals());
+        add(totals, AccountSummaryAccumulator.totals(staged.get()));
+        executionContext.put(TOTALS, totals);
+        if (delegate instanceof ItemStream stream) {
+            stream.update(executionContext);
+        }
+    }
+
+    @Override
+    public void close() {
+        StepContext stepContext = StepSynchronizationManager.getContext();
+        stepTotals.remove(stepContext == null ? -1L : stepContext.getStepExecution().getId());
+        if (delegate instanceof ItemStream stream) {
+            stream.close();
+        }
+    }
+
+    private HashMap<String, double[]> stepTotals() {
+        StepContext stepContext = StepSynchronizationManager.getContext();
+        Long stepExecutionId = stepContext == null ? -1L : stepContext.getStepExecution().getId();
+        return stepTotals.computeIfAbsent(stepExecutionId, id -> new HashMap<>());
+    }
+
+    private static void add(Map<String, double[]> totals, Map<String, double[]> more) {
+        more.forEach((account, accountTotals) -> {
+            double[] sum = totals.computeIfAbsent(account, key -> new double[4]);
+            for (int i = 0; i < 4; i++) {
+                sum[i] += accountTotals[i];
+            }
+        });
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.batchprocessor.batch.aggregation;
+
+import com.example.batchprocessor.model.AccountSummary;
+import com.example.batchprocessor.model.Transaction;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Per-account credit and debit totals, folded chunk by chunk.
+ *
+ * Account numbers of up to 17 digits are packed into a long key (digit count in the top bits, so
+ * leading zeros survive) and kept in an open-addressing table with parallel primitive arrays. When the
+ * table reaches the memory budget it is sorted and spilled to a run file, and {@link #drain} merges the
+ * runs with what is left in memory. Other account numbers go to a small boxed map that is never spilled.
+ */
+public class AccountSummaryAccumulator {
+
+    // key + 2 totals + 2 counts, at a load factor of 0.5
+    private static final int BYTES_PER_ENTRY = 2 * (Long.BYTES + 2 * Double.BYTES + 2 * Long.BYTES);
+    private static final long EMPTY = 0; // never a valid key, the digit count is at least 1
+    private static final int MAX_PACKED_DIGITS = 17;
+
+    private final int capacity;
+    private final int maxEntries;
+    private final Path spillDirectory;
+
+    private final long[] keys;
+    private final double[] credits;
+    private final double[] debits;
+    private final long[] creditCounts;
+    private final long[] debitCounts;
+    private int size;
+
+    private final Map<String, double[]> unpacked = new HashMap<>();
+    private final List<Path> runs = new ArrayList<>();
+
+    public AccountSummaryAccumulator(long memoryBudgetBytes, Path spillDirectory) {
+        this.capacity = Integer.highestOneBit((int) Math.max(16, Math.min(1 << 30, memoryBudgetBytes / BYTES_PER_ENTRY * 2)));
+        this.maxEntries = capacity / 2;
+        this.spillDirectory = spillDirectory;
+        this.keys = new long[capacity];
+        this.credits = new double[capacity];
+        this.debits = new double[capacity];
+        this.creditCounts = new long[capacity];
+        this.debitCounts = new long[capacity];
+    }
+
+    /**
+     * Totals per account of the credits and debits among the transactions, as
+     * {credit, debit, credit count, debit count}.
+     */
+    public static Map<String, double[]> totals(List<? extends Transaction> transactions) {
+        Map<String, double[]> totals = new HashMap<>();
+        for (Transaction transaction : transactions) {
+            boolean credit = "credit".equals(transaction.getType());
+            if (!credit && !"debit".equals(transaction.getType()) || transaction.getAmount() == null) {
+                continue;
+            }
+            double[] account = totals.computeIfAbsent(transaction.getAccountNumber(), accountNumber -> new double[4]);
+            account[credit ? 0 : 1] += transaction.getAmount();
+            account[credit ? 2 : 3]++;
+        }
+        return totals;
+    }
+
+    /**
+     * Adds totals in the format of {@link #totals}, of a committed chunk or kept by a step before a restart.
+     */
+    public synchronized void fold(Map<String, double[]> totals) {
+        totals.forEach(this::add);
+    }
+
+    private void add(String accountNumber, double[] totals) {
+        long key = pack(accountNumber);
+        if (key == EMPTY) {
+            double[] unpackedTotals = unpacked.computeIfAbsent(accountNumber, account -> new double[4]);
+            for (int i = 0; i < 4; i++) {
+                unpackedTotals[i] += totals[i];
+            }
+            return;
+        }
+
+        int slot = slot(key);
+        if (keys[slot] == EMPTY) {
+            if (size == maxEntries) {
+                spill();
+                slot = slot(key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        credits[slot] += totals[0];
+        debits[slot] += totals[1];
+        creditCounts[slot] += (long) totals[2];
+        debitCounts[slot] += (long) totals[3];
+    }
+
+    /**
+     * Emits one summary per account, merged over all spilled runs, and resets the accumulator.
+     * Packed accounts come in key order, followed by the unpacked ones.
+     */
+    public synchronized void drain(Consumer<AccountSummary> consumer) {
+        try {
+            List<RunReader> readers = new ArrayList<>();
+            for (Path run : runs) {
+                readers.add(new RunReader(run));
+            }
+            readers.add(new RunReader(sortedSlots()));
+
+            PriorityQueue<RunReader> queue = new PriorityQueue<>((a, b) -> Long.compare(a.key, b.key));
+            for (RunReader reader : readers) {
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+            }
+            while (!queue.isEmpty()) {
+                long key = queue.peek().key;
+                AccountSummary summary = new AccountSummary(unpack(key), 0, 0, 0, 0);
+                while (!queue.isEmpty() && queue.peek().key == key) {
+                    RunReader reader = queue.poll();
+                    summary.setTotalCredit(summary.getTotalCredit() + reader.credit);
+                    summary.setTotalDebit(summary.getTotalDebit() + reader.debit);
+                    summary.setCreditCount(summary.getCreditCount() + reader.creditCount);
+                    summary.setDebitCount(summary.getDebitCount() + reader.debitCount);
+                    if (reader.next()) {
+                        queue.add(reader);
+                    }
+                }
+                consumer.accept(summary);
+            }
+            unpacked.forEach((account, totals) ->
+                    consumer.accept(new AccountSummary(account, totals[0], totals[1], (long) totals[2], (long) totals[3])));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not merge the spilled account totals", e);
+        } finally {
+            reset();
+        }
+    }
+
+    public synchronized void reset() {
+        clearTable();
+        unpacked.clear();
+        for (Path run : runs) {
+            try {
+                Files.deleteIfExists(run);
+            } catch (IOException e) {
+                // a leftover temp file is not worth failing the job for
+            }
+        }
+        runs.clear();
+    }
+
+    private void spill() {
+        try {
+            Path run = Files.createTempFile(spillDirectory, "account-summary-", ".run");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run)))) {
+                for (int slot : sortedSlots()) {
+                    out.writeLong(keys[slot]);
+                    out.writeDouble(credits[slot]);
+                    out.writeDouble(debits[slot]);
+                    out.writeLong(creditCounts[slot]);
+                    out.writeLong(debitCounts[slot]);
+                }
+            }
+            runs.add(run);
+            clearTable();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not spill account totals to " + spillDirectory, e);
+        }
+    }
+
+    private int[] sortedSlots() {
+        long[] order = new long[size];
+        int n = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            if (keys[slot] != EMPTY) {
+                order[n++] = keys[slot];
+            }
+        }
+        Arrays.sort(order);
+        int[] slots = new int[n];
+        for (int i = 0; i < n; i++) {
+            slots[i] = slot(order[i]);
+        }
+        return slots;
+    }
+
+    private void clearTable() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(credits, 0);
+        Arrays.fill(debits, 0);
+        Arrays.fill(creditCounts, 0);
+        Arrays.fill(debitCounts, 0);
+        size = 0;
+    }
+
+    // linear probing, returns the slot holding the key or the empty slot where it belongs
+    private int slot(long key) {
+        int mask = capacity - 1;
+        int slot = (int) mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static long pack(String accountNumber) {
+        int digits = accountNumber == null ? 0 : accountNumber.length();
+        if (digits == 0 || digits > MAX_PACKED_DIGITS) {
+            return EMPTY;
+        }
+        long value = 0;
+        for (int i = 0; i < digits; i++) {
+            int digit = accountNumber.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return EMPTY;
+            }
+            value = value * 10 + digit;
+        }
+        return (long) digits << 57 | value;
+    }
+
+    private static String unpack(long key) {
+        int digits = (int) (key >>> 57);
+        String value = Long.toString(key & ((1L << 57) - 1));
+        return "0".repeat(digits - value.length()) + value;
+    }
+
+    // Reads a spilled run, or the sorted slots of the in-memory table
+    private class RunReader {
+        private final DataInputStream in;
+        private final int[] slots;
+        private int index;
+
+        long key;
+        double credit;
+        double debit;
+        long creditCount;
+        long debitCount;
+
+        RunReader(Path run) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run)));
+            this.slots = null;
+        }
+
+        RunReader(int[] slots) {
+            this.in = null;
+            this.slots = slots;
+        }
+
+        boolean next() throws IOException {
+            if (slots != null) {
+                if (index == slots.length) {
+                    return false;
+                }
+                int slot = slots[index++];
+                key = keys[slot];
+                credit = credits[slot];
+                debit = debits[slot];
+                creditCount = creditCounts[slot];
+                debitCount = debitCounts[slot];
+                return true;
+            }
+            try {
+                key = in.readLong();
+            } catch (EOFException e) {
+                in.close();
+                return false;
+            }
+            credit = in.readDouble();
+            debit = in.readDouble();
+            creditCount = in.readLong();
+            debitCount = in.readLong();
+            return true;
+        }
+    }
+}
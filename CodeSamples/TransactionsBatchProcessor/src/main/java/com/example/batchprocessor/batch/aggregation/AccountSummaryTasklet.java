@@ -0,0 +1,125 @@
+package com.example.batchprocessor.batch.aggregation;
+
+import com.example.batchprocessor.model.AccountSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the per-account totals to ACCOUNT_SUMMARY: they replace the summary, or are added to it in
+ * incremental mode, as an incremental run only read the rows appended since the last run.
+ *
+ * The totals come from the accumulator, which holds what this execution read. After a restart it
+ * misses the chunks the failed execution committed, so it is rebuilt from the totals that
+ * AccountAggregatingItemWriter kept in the ExecutionContext of every step execution, the last one
+ * of each step.
+ */
+public class AccountSummaryTasklet implements Tasklet {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountSummaryTasklet.class);
+
+    private static final String MERGE_SQL = """
+            MERGE INTO account_summary t
+            USING (VALUES (?, ?, ?, ?, ?)) AS s(account_number, total_credit, total_debit, credit_count, debit_count)
+            ON t.account_number = s.account_number
+            WHEN MATCHED THEN UPDATE SET
+                total_credit = t.total_credit + s.total_credit,
+                total_debit = t.total_debit + s.total_debit,
+                credit_count = t.credit_count + s.credit_count,
+                debit_count = t.debit_count + s.debit_count
+            WHEN NOT MATCHED THEN INSERT (account_number, total_credit, total_debit, credit_count, debit_count)
+                VALUES (s.account_number, s.total_credit, s.total_debit, s.credit_count, s.debit_count)
+            """;
+
+    private static final String INSERT_SQL = "INSERT INTO account_summary"
+            + " (account_number, total_credit, total_debit, credit_count, debit_count) VALUES (?, ?, ?, ?, ?)";
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final AccountSummaryAccumulator accumulator;
+    private final JdbcTemplate jdbcTemplate;
+    private final JobExplorer jobExplorer;
+    private final boolean incremental;
+
+    public AccountSummaryTasklet(AccountSummaryAccumulator accumulator, DataSource dataSource, JobExplorer jobExplorer,
+                                 boolean incremental) {
+        this.accumulator = accumulator;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jobExplorer = jobExplorer;
+        this.incremental = incremental;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+        JobExecution jobExecution = chunkContext.getStepContext().getStepExecution().getJobExecution();
+        List<JobExecution> jobExecutions = jobExplorer.getJobExecutions(jobExecution.getJobInstance());
+        if (jobExecutions.size() > 1) {
+            reseed(jobExecutions);
+        }
+        if (incremental) {
+            write(contribution, MERGE_SQL);
+        } else {
+            jdbcTemplate.update("DELETE FROM account_summary");
+            write(contribution, INSERT_SQL);
+        }
+        return RepeatStatus.FINISHED;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void reseed(List<JobExecution> jobExecutions) {
+        Map<String, StepExecution> lastExecutions = new HashMap<>();
+        for (JobExecution jobExecution : jobExecutions) {
+            for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+                lastExecutions.merge(stepExecution.getStepName(), stepExecution,
+                        (a, b) -> a.getId() > b.getId() ? a : b);
+            }
+        }
+        accumulator.reset();
+        int steps = 0;
+        for (StepExecution stepExecution : lastExecutions.values()) {
+            ExecutionContext executionContext = stepExecution.getExecutionContext();
+            if (executionContext.containsKey(AccountAggregatingItemWriter.TOTALS)) {
+                accumulator.fold((Map<String, double[]>) executionContext.get(AccountAggregatingItemWriter.TOTALS));
+                steps++;
+            }
+        }
+        logger.info("Restart: account totals rebuilt from the ExecutionContext of {} step executions", steps);
+    }
+
+    private void write(StepContribution contribution, String sql) {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        long[] accounts = new long[1];
+        accumulator.drain(summary -> {
+            batch.add(row(summary));
+            accounts[0]++;
+            if (batch.size() == BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batch);
+        }
+        contribution.incrementWriteCount(accounts[0]);
+        logger.info("Account summary updated for {} accounts", accounts[0]);
+    }
+
+    private static Object[] row(AccountSummary summary) {
+        return new Object[]{summary.getAccountNumber(), summary.getTotalCredit(), summary.getTotalDebit(),
+                summary.getCreditCount(), summary.getDebitCount()};
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.batchprocessor.batch.incremental;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Restricts a run to the part of the input that was appended since the last completed run.
+ *
+ * The range [incremental.from, incremental.to) goes into the job ExecutionContext, in whatever unit the
+ * reader counts (data lines, or bytes for the mapped reader). incremental.from is the incremental.to of the
+ * last COMPLETED execution, incremental.to the current end of the complete lines of the input, so a line
+ * still being appended is left for the next run. A restarted execution inherits the context of the
+ * failed one and so reads the same range again.
+ */
+public class HighWaterMarkListener implements JobExecutionListener {
+
+    public static final String FROM = "incremental.from";
+    public static final String TO = "incremental.to";
+
+    private static final Logger logger = LoggerFactory.getLogger(HighWaterMarkListener.class);
+    private static final int PAGE_SIZE = 20;
+
+    private final JobExplorer jobExplorer;
+    private final LongSupplier inputEnd;
+
+    public HighWaterMarkListener(JobExplorer jobExplorer, LongSupplier inputEnd) {
+        this.jobExplorer = jobExplorer;
+        this.inputEnd = inputEnd;
+    }
+
+    @Override
+    public void beforeJob(JobExecution jobExecution) {
+        ExecutionContext context = jobExecution.getExecutionContext();
+        if (context.containsKey(TO)) {
+            logger.info("Restarting over [{}, {})", context.getLong(FROM), context.getLong(TO));
+            return;
+        }
+
+        long from = lastHighWaterMark(jobExecution.getJobInstance().getJobName());
+        long to = inputEnd.getAsLong();
+        if (to < from) {
+            logger.warn("Input is shorter than the high-water mark {}, it was replaced: reading it from the start", from);
+            from = 0;
+        }
+        context.putLong(FROM, from);
+        context.putLong(TO, to);
+        logger.info("Incremental run over [{}, {})", from, to);
+    }
+
+    private long lastHighWaterMark(String jobName) {
+        for (int start = 0; ; start += PAGE_SIZE) {
+            List<JobInstance> instances = jobExplorer.getJobInstances(jobName, start, PAGE_SIZE); // newest first
+            if (instances.isEmpty()) {
+                return 0;
+            }
+            for (JobInstance instance : instances) {
+                for (JobExecution execution : jobExplorer.getJobExecutions(instance)) {
+                    if (execution.getStatus() == BatchStatus.COMPLETED && execution.getExecutionContext().containsKey(TO)) {
+                        return execution.getExecutionContext().getLong(TO);
+                    }
+                }
+            }
+        }
+    }
+}
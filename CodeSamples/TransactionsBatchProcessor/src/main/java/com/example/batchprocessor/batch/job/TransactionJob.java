@@ -1,23 +1,77 @@
 package com.example.batchprocessor.batch.job;
 
+import com.example.batchprocessor.batch.aggregation.AccountAggregatingItemWriter;
+import com.example.batchprocessor.batch.aggregation.AccountSummaryAccumulator;
+import com.example.batchprocessor.batch.aggregation.AccountSummaryTasklet;
+import com.example.batchprocessor.batch.incremental.HighWaterMarkListener;
+import com.example.batchprocessor.batch.partitioner.ByteRangePartitioner;
+import com.example.batchprocessor.batch.policy.AdaptiveCompletionPolicy;
+import com.example.batchprocessor.batch.partitioner.LineRangePartitioner;
 import com.example.batchprocessor.batch.processor.TransactionProcessor;
+import com.example.batchprocessor.batch.processor.dedup.DuplicateTransactionProcessor;
+import com.example.batchprocessor.batch.processor.velocity.VelocityScoringProcessor;
 import com.example.batchprocessor.batch.reader.CSVReader;
+import com.example.batchprocessor.batch.reader.DecompressingResource;
+import com.example.batchprocessor.batch.writer.ClassifierTransactionItemWriter;
+import com.example.batchprocessor.batch.writer.ColumnarTransactionItemWriter;
+import com.example.batchprocessor.batch.writer.DeadLetterWriter;
+import com.example.batchprocessor.batch.writer.TransactionBatchInsertWriter;
 import com.example.batchprocessor.batch.writer.TransactionItemWriter;
+import com.example.batchprocessor.config.JobCompletionListener;
+import com.example.batchprocessor.config.JobMetadataFlusher;
+import com.example.batchprocessor.config.JobProgressTracker;
+import com.example.batchprocessor.config.StepMetricsListener;
+import com.example.batchprocessor.model.FailedTransaction;
+import com.example.batchprocessor.model.SuccessfulTransaction;
 import com.example.batchprocessor.model.Transaction;
+import org.springframework.batch.core.ChunkListener;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.SkipListener;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.batch.core.configuration.annotation.JobScope;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.job.builder.SimpleJobBuilder;
+import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.batch.core.partition.support.MultiResourcePartitioner;
+import org.springframework.batch.core.partition.support.Partitioner;
 import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.FaultTolerantStepBuilder;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
 import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.integration.async.AsyncItemProcessor;
+import org.springframework.batch.integration.async.AsyncItemWriter;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.transaction.PlatformTransactionManager;
 
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+import static com.example.batchprocessor.batch.writer.ClassifierTransactionItemWriter.delegate;
+
 @Configuration
 //@EnableBatchProcessing
 public class TransactionJob {
@@ -25,40 +79,440 @@ public class TransactionJob {
     @Autowired
     private JobRepository jobRepository;
 
+    @Autowired
+    private JobExplorer jobExplorer;
+
     @Autowired
     private PlatformTransactionManager transactionManager;
 
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JobCompletionListener jobCompletionListener;
+
+    @Autowired
+    private StepMetricsListener stepMetricsListener;
+
+    @Autowired
+    private JobProgressTracker jobProgressTracker;
+
+    @Autowired
+    private ObjectProvider<JobMetadataFlusher> jobMetadataFlusher; // only with batch.metadata.mode=memory and flush
+
+    @Value("${batch.reader.mode:flatfile}")
+    private String readerMode;
+
+    @Value("${batch.writer.mode:jpa}")
+    private String writerMode;
+
+    @Value("${batch.writer.columnar.directory:output}")
+    private String columnarDirectory;
+
+    @Value("${batch.writer.columnar.rows-per-file:1000000}")
+    private long columnarRowsPerFile;
+
+    @Value("${batch.writer.columnar.row-group-size-mb:128}")
+    private long columnarRowGroupSizeMb;
+
+    @Value("${batch.writer.columnar.compression:SNAPPY}")
+    private CompressionCodecName columnarCompression;
+
+    @Value("${batch.chunk.size:10}")
+    private int chunkSize;
+
+    @Value("${batch.chunk.adaptive:false}")
+    private boolean adaptiveChunks;
+
+    @Value("${batch.chunk.min-size:10}")
+    private int minChunkSize;
+
+    @Value("${batch.chunk.max-size:10000}")
+    private int maxChunkSize;
+
+    @Value("${batch.chunk.target-commit-millis:200}")
+    private long targetCommitMillis;
+
+    @Value("${batch.fault-tolerance.skip-limit:1000}")
+    private int skipLimit;
+
+    @Value("${batch.fault-tolerance.retry-limit:3}")
+    private int retryLimit;
+
+    @Value("${batch.fault-tolerance.dead-letter-file:rejected-transactions.txt}")
+    private String deadLetterFile;
+
+    @Value("${batch.dedup.enabled:false}")
+    private boolean dedup;
+
+    @Value("${batch.dedup.expected-rows:10000000}")
+    private long dedupExpectedRows;
+
+    @Value("${batch.dedup.false-positive-rate:0.01}")
+    private double dedupFalsePositiveRate;
+
+    @Value("${batch.dedup.recent-window:100000}")
+    private int dedupRecentWindow;
+
+    @Value("${batch.dedup.seed-window-days:30}")
+    private long dedupSeedWindowDays;
+
+    @Value("${batch.velocity.enabled:false}")
+    private boolean velocity;
+
+    @Value("${batch.velocity.max-debits:5}")
+    private int velocityMaxDebits;
+
+    @Value("${batch.velocity.window-seconds:60}")
+    private long velocityWindowSeconds;
+
+    @Value("${batch.async.enabled:false}")
+    private boolean asyncProcessing;
+
+    @Value("${batch.async.concurrency-limit:64}")
+    private int asyncConcurrencyLimit;
+
+    @Value("${batch.partition.enabled:false}")
+    private boolean partitioned;
+
+    @Value("${batch.partition.grid-size:4}")
+    private int gridSize;
+
+    @Value("${batch.partition.thread-count:4}")
+    private int threadCount;
+
+    @Value("${batch.remote-chunking.enabled:false}")
+    private boolean remoteChunking;
+
+    @Autowired
+    @Qualifier("remoteTransactionStep")
+    private ObjectProvider<Step> remoteTransactionStep; // only defined with batch.remote-chunking.enabled
+
+    @Value("${batch.incremental.enabled:false}")
+    private boolean incremental;
+
+    @Value("${batch.aggregation.enabled:false}")
+    private boolean aggregation;
+
+    @Value("${batch.aggregation.memory-budget-mb:64}")
+    private long aggregationMemoryBudgetMb;
+
+    @Value("${batch.aggregation.spill-directory:${java.io.tmpdir}}")
+    private String aggregationSpillDirectory;
+
 
     @Bean
     public CSVReader csvReader() {
         return new CSVReader();
     }
 
+    /**
+     * flatfile: FlatFileItemReader over the input resource.
+     * mapped: MappedTransactionItemReader over the memory-mapped input file.
+     * Incremental runs read only [from, to), in data lines or bytes respectively.
+     * With input.files set, the matching (possibly compressed) files are read one after the other instead.
+     */
+    @Bean
+    @StepScope
+    public ItemStreamReader<Transaction> reader(
+            @Value("#{jobExecutionContext['incremental.from']}") Long from,
+            @Value("#{jobExecutionContext['incremental.to']}") Long to) {
+        if (csvReader().hasInputFiles()) {
+            return csvReader().multiResourceTransactionReader();
+        }
+        if ("mapped".equals(readerMode)) {
+            return from == null ? csvReader().mappedTransactionReader() : csvReader().mappedTransactionReader(from, to);
+        }
+        return from == null ? csvReader().transactionReader()
+                : csvReader().transactionReader(Math.toIntExact(from), Math.toIntExact(to));
+    }
+
     @Bean
     public TransactionProcessor processor() {
         return new TransactionProcessor();
     }
 
     @Bean
-    public TransactionItemWriter writer() {
+    public DuplicateTransactionProcessor duplicateTransactionProcessor() {
+        return new DuplicateTransactionProcessor(processor(), dataSource, dedupExpectedRows, dedupFalsePositiveRate,
+                dedupRecentWindow, Duration.ofDays(dedupSeedWindowDays));
+    }
+
+    @Bean
+    public VelocityScoringProcessor velocityScoringProcessor() {
+        return new VelocityScoringProcessor(dedup ? duplicateTransactionProcessor() : processor(), velocityMaxDebits,
+                Duration.ofSeconds(velocityWindowSeconds));
+    }
+
+    /**
+     * TransactionProcessor, wrapped by the duplicate check and then the velocity scoring when enabled.
+     */
+    private ItemProcessor<Transaction, Transaction> stepProcessor() {
+        if (velocity) {
+            return velocityScoringProcessor();
+        }
+        return dedup ? duplicateTransactionProcessor() : processor();
+    }
+
+    /**
+     * jpa: one repository.save per row (TransactionItemWriter).
+     * jdbc: one JDBC batch per target table and chunk, routed by ClassifierTransactionItemWriter.
+     * columnar: rolling Parquet files, one set per step (see columnarWriter).
+     */
+    @Bean
+    public ItemWriter<Transaction> writer() {
+        if ("columnar".equals(writerMode)) {
+            return columnarWriter(null, null);
+        }
+        if ("jdbc".equals(writerMode)) {
+            Map<Class<? extends Transaction>, ItemWriter<? super Transaction>> delegates = Map.of(
+                    SuccessfulTransaction.class, delegate(TransactionBatchInsertWriter.successfulTransactions(dataSource)),
+                    FailedTransaction.class, delegate(TransactionBatchInsertWriter.failedTransactions(dataSource)));
+            return new ClassifierTransactionItemWriter(delegates);
+        }
         return new TransactionItemWriter();
     }
 
+    /**
+     * Step scoped, so every partition writes its own files. The names contain the job instance id and the
+     * step name, which a restart keeps.
+     */
+    @Bean
+    @StepScope
+    public ColumnarTransactionItemWriter columnarWriter(
+            @Value("#{stepExecution.stepName}") String stepName,
+            @Value("#{stepExecution.jobExecution.jobInstance.instanceId}") Long instanceId) {
+        return new ColumnarTransactionItemWriter(Path.of(columnarDirectory), instanceId + "-" + stepName.replace(':', '-'),
+                columnarRowsPerFile, columnarRowGroupSizeMb * 1024 * 1024, columnarCompression);
+    }
+
+    // Async mode
+    /**
+     * Each item is processed on a virtual thread and the chunk holds Futures, so processing overlaps
+     * with reading. The writer waits for the futures in chunk order and rethrows the first failure.
+     */
+    @Bean
+    public AsyncItemProcessor<Transaction, Transaction> asyncProcessor() {
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("processor-");
+        taskExecutor.setVirtualThreads(true);
+        taskExecutor.setConcurrencyLimit(asyncConcurrencyLimit);
+
+        AsyncItemProcessor<Transaction, Transaction> asyncProcessor = new AsyncItemProcessor<>();
+        asyncProcessor.setDelegate(stepProcessor());
+        asyncProcessor.setTaskExecutor(taskExecutor);
+        return asyncProcessor;
+    }
+
+    @Bean
+    public AsyncItemWriter<Transaction> asyncWriter() {
+        AsyncItemWriter<Transaction> asyncWriter = new AsyncItemWriter<>();
+        asyncWriter.setDelegate(stepWriter());
+        return asyncWriter;
+    }
+
+    // Account aggregation
+    @Bean
+    public AccountSummaryAccumulator accountSummaryAccumulator() {
+        return new AccountSummaryAccumulator(aggregationMemoryBudgetMb * 1024 * 1024, Path.of(aggregationSpillDirectory));
+    }
+
+    @Bean
+    public AccountAggregatingItemWriter accountAggregatingWriter() {
+        return new AccountAggregatingItemWriter(writer(), accountSummaryAccumulator());
+    }
+
+    private ItemWriter<Transaction> stepWriter() {
+        return aggregation ? accountAggregatingWriter() : writer();
+    }
+
+    /**
+     * Runs after the transaction step and writes the account totals, see AccountSummaryTasklet.
+     */
+    @Bean
+    public Step accountSummaryStep() {
+        return new StepBuilder("accountSummaryStep", jobRepository)
+                .tasklet(new AccountSummaryTasklet(accountSummaryAccumulator(), dataSource, jobExplorer, incremental),
+                        transactionManager)
+                .build();
+    }
+
 
     @Bean
     public Step transactionStep() {
-        return new StepBuilder("transactionStep", jobRepository)
-                .<Transaction, Transaction>chunk(10, transactionManager)
-                .reader(csvReader().transactionReader())
-                .processor(processor())
-                .writer(writer())
+        return chunkStep("transactionStep", reader(null, null));
+    }
+
+    @Bean
+    public DeadLetterWriter deadLetterWriter() {
+        return new DeadLetterWriter(Paths.get(deadLetterFile));
+    }
+
+    @Bean
+    @StepScope
+    public AdaptiveCompletionPolicy adaptiveCompletionPolicy() {
+        return new AdaptiveCompletionPolicy(chunkSize, minChunkSize, maxChunkSize, Duration.ofMillis(targetCommitMillis));
+    }
+
+    /**
+     * A fixed commit interval of batch.chunk.size, or with batch.chunk.adaptive=true one that starts
+     * there and is tuned towards batch.chunk.target-commit-millis per chunk.
+     */
+    private <O> SimpleStepBuilder<Transaction, O> chunk(String name) {
+        StepBuilder builder = new StepBuilder(name, jobRepository);
+        if (adaptiveChunks) {
+            SimpleStepBuilder<Transaction, O> adaptive = builder.chunk(adaptiveCompletionPolicy(), transactionManager);
+            adaptive.listener((ChunkListener) adaptiveCompletionPolicy());
+            return adaptive;
+        }
+        return builder.chunk(chunkSize, transactionManager);
+    }
+
+    private Step chunkStep(String name, ItemReader<Transaction> reader) {
+        if (asyncProcessing) {
+            SimpleStepBuilder<Transaction, Future<Transaction>> builder = this.<Future<Transaction>>chunk(name)
+                    .reader(reader)
+                    .processor(asyncProcessor())
+                    .writer(asyncWriter())
+                    .listener(processor()); // the step cannot see the delegate's listener methods
+            if (dedup) {
+                builder.stream(duplicateTransactionProcessor());
+            }
+            if (velocity) {
+                builder.listener((StepExecutionListener) velocityScoringProcessor());
+            }
+            return faultTolerantStep(builder);
+        }
+        SimpleStepBuilder<Transaction, Transaction> builder = this.<Transaction>chunk(name)
+                .reader(reader)
+                .processor(stepProcessor()) // registered as stream and listener, passing streams on to the duplicate check
+                .writer(stepWriter());
+        if (dedup || velocity) {
+            builder.listener(processor()); // wrapped by the duplicate check or velocity scoring
+        }
+        return faultTolerantStep(builder);
+    }
+
+    /**
+     * Malformed rows are skipped (up to the skip limit) and appended to the dead-letter file,
+     * transient database errors are retried. Every chunk step reports to StepMetricsListener and JobProgressTracker.
+     */
+    private <O> Step faultTolerantStep(SimpleStepBuilder<Transaction, O> builder) {
+        FaultTolerantStepBuilder<Transaction, O> faultTolerant = builder.faultTolerant();
+        faultTolerant.skipLimit(skipLimit)
+                .skip(FlatFileParseException.class)
+                .skip(DataIntegrityViolationException.class)
+                .retryLimit(retryLimit)
+                .retry(TransientDataAccessException.class);
+        // listener(...) returns the simple builder type, so the listeners are added one by one
+        faultTolerant.listener((SkipListener<Object, Object>) deadLetterWriter());
+        faultTolerant.listener((StepExecutionListener) deadLetterWriter());
+        faultTolerant.listener((StepExecutionListener) stepMetricsListener);
+        faultTolerant.listener((ChunkListener) stepMetricsListener);
+        faultTolerant.listener((SkipListener<Object, Object>) stepMetricsListener);
+        faultTolerant.listener(jobProgressTracker);
+        if (aggregation) {
+            faultTolerant.listener((ChunkListener) accountAggregatingWriter());
+        }
+        return faultTolerant.build();
+    }
+
+    // Partitioned mode
+    /**
+     * The manager step splits the input file into line ranges (byte ranges for the mapped reader), or
+     * with input.files makes one partition per file, and runs one worker step per partition on the
+     * partition task executor. Every worker has its own
+     * StepExecution, so a failed job restarts only the partitions that did not complete.
+     */
+    @Bean
+    @JobScope
+    public Partitioner partitioner(
+            @Value("#{jobExecutionContext['incremental.from']}") Long from,
+            @Value("#{jobExecutionContext['incremental.to']}") Long to) {
+        if (csvReader().hasInputFiles()) {
+            MultiResourcePartitioner partitioner = new MultiResourcePartitioner();
+            partitioner.setResources(csvReader().inputResources());
+            return partitioner;
+        }
+        if ("mapped".equals(readerMode)) {
+            return from == null ? new ByteRangePartitioner(csvReader().inputPath())
+                    : new ByteRangePartitioner(csvReader().inputPath(), from, to);
+        }
+        return from == null ? new LineRangePartitioner(csvReader().inputResource())
+                : new LineRangePartitioner(csvReader().inputResource(), Math.toIntExact(from), Math.toIntExact(to));
+    }
+
+    @Bean
+    @StepScope
+    public ItemStreamReader<Transaction> partitionReader(
+            @Value("#{stepExecutionContext['fromLine']}") Integer fromLine,
+            @Value("#{stepExecutionContext['toLine']}") Integer toLine,
+            @Value("#{stepExecutionContext['fromOffset']}") Long fromOffset,
+            @Value("#{stepExecutionContext['startOffset']}") Long startOffset,
+            @Value("#{stepExecutionContext['endOffset']}") Long endOffset,
+            @Value("#{stepExecutionContext['fileName']}") String fileName) {
+        if (fileName != null) {
+            return csvReader().transactionReader(new DecompressingResource(UrlResource.from(fileName)));
+        }
+        if ("mapped".equals(readerMode)) {
+            return csvReader().mappedTransactionReader(startOffset, endOffset);
+        }
+        if (fromOffset == null) { // partitioned by an earlier version, before a restart
+            return csvReader().transactionReader(fromLine, toLine);
+        }
+        return csvReader().transactionReader(fromOffset, fromLine, toLine);
+    }
+
+    @Bean
+    public Step transactionWorkerStep() {
+        return chunkStep("transactionWorkerStep", partitionReader(null, null, null, null, null, null));
+    }
+
+    @Bean
+    public Step transactionManagerStep() {
+        return new StepBuilder("transactionManagerStep", jobRepository)
+                .partitioner("transactionWorkerStep", partitioner(null, null))
+                .step(transactionWorkerStep())
+                .gridSize(gridSize)
+                .taskExecutor(partitionTaskExecutor())
                 .build();
     }
 
+    private TaskExecutor partitionTaskExecutor() {
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("partition-");
+        taskExecutor.setConcurrencyLimit(threadCount);
+        return taskExecutor;
+    }
+
+    // Incremental mode
+    @Bean
+    public HighWaterMarkListener highWaterMarkListener() {
+        if ("mapped".equals(readerMode)) {
+            return new HighWaterMarkListener(jobExplorer, () -> ByteRangePartitioner.completeLinesEnd(csvReader().inputPath()));
+        }
+        return new HighWaterMarkListener(jobExplorer, () -> LineRangePartitioner.countCompleteDataLines(csvReader().inputResource()));
+    }
+
+    private Step firstStep() {
+        if (remoteChunking) {
+            return remoteTransactionStep.getObject();
+        }
+        return partitioned ? transactionManagerStep() : transactionStep();
+    }
+
     @Bean
     public Job job() {
-        return new JobBuilder("classifyTransactionJob", jobRepository)
-                .start(transactionStep())
-                .build();
+        SimpleJobBuilder builder = new JobBuilder("classifyTransactionJob", jobRepository)
+                .incrementer(new RunIdIncrementer())
+                .start(firstStep())
+                .listener(jobCompletionListener)
+                .listener(deadLetterWriter());
+        jobMetadataFlusher.ifAvailable(flusher -> builder.listener(flusher));
+        if (incremental && !csvReader().hasInputFiles()) { // the high-water mark is a position in input.file.name
+            builder.listener(highWaterMarkListener());
+        }
+        if (aggregation) {
+            builder.next(accountSummaryStep());
+        }
+        return builder.build();
     }
 }
\ No newline at end of file
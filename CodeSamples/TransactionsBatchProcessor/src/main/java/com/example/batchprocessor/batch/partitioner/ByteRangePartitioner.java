@@ -0,0 +1,92 @@
+package com.example.batchprocessor.batch.partitioner;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Splits the input file into equal byte ranges [startOffset, endOffset) without reading it.
+ * Ranges do not have to start on a line boundary, the MappedTransactionItemReader aligns them.
+ * Only the bytes in [firstOffset, endOffset) are split when a range is given, e.g. the new tail of an incremental run.
+ */
+public class ByteRangePartitioner implements Partitioner {
+
+    public static final String START_OFFSET = "startOffset";
+    public static final String END_OFFSET = "endOffset";
+
+    private final Path path;
+    private final long firstOffset;
+    private final long endOffset;
+
+    public ByteRangePartitioner(Path path) {
+        this(path, 0, -1);
+    }
+
+    /**
+     * @param endOffset exclusive end, or -1 for the end of the file
+     */
+    public ByteRangePartitioner(Path path, long firstOffset, long endOffset) {
+        this.path = path;
+        this.firstOffset = firstOffset;
+        this.endOffset = endOffset;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        long size;
+        try {
+            size = endOffset < 0 ? Files.size(path) : endOffset;
+        } catch (IOException e) {
+            throw new ItemStreamException("Could not read the size of " + path, e);
+        }
+        long bytesPerPartition = (size - firstOffset + gridSize - 1) / gridSize;
+
+        Map<String, ExecutionContext> partitions = new HashMap<>(gridSize);
+        for (int i = 0; i < gridSize; i++) {
+            long startOffset = Math.min(firstOffset + i * bytesPerPartition, size);
+            long endOffset = Math.min(startOffset + bytesPerPartition, size);
+
+            ExecutionContext context = new ExecutionContext();
+            context.putLong(START_OFFSET, startOffset);
+            context.putLong(END_OFFSET, endOffset);
+            partitions.put("partition" + i, context);
+        }
+        return partitions;
+    }
+
+    /**
+     * The offset just after the last newline, i.e. the end of the complete lines. A line that is
+     * still being appended is left for the next run.
+     */
+    public static long completeLinesEnd(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            long end = channel.size();
+            while (end > 0) {
+                long start = Math.max(0, end - buffer.capacity());
+                buffer.clear().limit((int) (end - start));
+                while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) >= 0) {
+                    // fill the block
+                }
+                for (int i = buffer.position() - 1; i >= 0; i--) {
+                    if (buffer.get(i) == '\n') {
+                        return start + i + 1;
+                    }
+                }
+                end = start;
+            }
+            return 0;
+        } catch (IOException e) {
+            throw new ItemStreamException("Could not read " + path, e);
+        }
+    }
+}
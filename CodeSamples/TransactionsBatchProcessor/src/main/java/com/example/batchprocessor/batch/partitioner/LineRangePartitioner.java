@@ -0,0 +1,133 @@
+package com.example.batchprocessor.batch.partitioner;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Splits the input CSV into contiguous line ranges, one per worker step.
+ * Each partition gets a half-open range [fromLine, toLine) of data lines (the header is not counted),
+ * and the byte offset fromOffset where fromLine starts, so its reader does not read the lines before it.
+ * Only the lines in [firstLine, endLine) are split when a range is given, e.g. the new tail of an incremental run.
+ */
+public class LineRangePartitioner implements Partitioner {
+
+    public static final String FROM_LINE = "fromLine";
+    public static final String TO_LINE = "toLine";
+    public static final String FROM_OFFSET = "fromOffset";
+
+    private final Resource resource;
+    private final int firstLine;
+    private final int endLine;
+
+    public LineRangePartitioner(Resource resource) {
+        this(resource, 0, -1);
+    }
+
+    /**
+     * @param endLine exclusive end, or -1 for the end of the file
+     */
+    public LineRangePartitioner(Resource resource, int firstLine, int endLine) {
+        this.resource = resource;
+        this.firstLine = firstLine;
+        this.endLine = endLine;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        int lines = endLine < 0 ? countDataLines(resource) : endLine;
+        int linesPerPartition = (lines - firstLine + gridSize - 1) / gridSize;
+
+        int[] fromLines = new int[gridSize];
+        for (int i = 0; i < gridSize; i++) {
+            fromLines[i] = Math.min(firstLine + i * linesPerPartition, lines);
+        }
+        long[] fromOffsets = lineOffsets(resource, fromLines);
+
+        Map<String, ExecutionContext> partitions = new HashMap<>(gridSize);
+        for (int i = 0; i < gridSize; i++) {
+            ExecutionContext context = new ExecutionContext();
+            context.putInt(FROM_LINE, fromLines[i]);
+            context.putInt(TO_LINE, Math.min(fromLines[i] + linesPerPartition, lines));
+            context.putLong(FROM_OFFSET, fromOffsets[i]);
+            partitions.put("partition" + i, context);
+        }
+        return partitions;
+    }
+
+    /**
+     * The byte offsets where the given data lines (in ascending order) start, the end of the file for
+     * lines past its end. Reads the file only up to the last of them.
+     */
+    public static long[] lineOffsets(Resource resource, int[] dataLines) {
+        long[] offsets = new long[dataLines.length];
+        int next = 0;
+        try (InputStream in = resource.getInputStream()) {
+            byte[] buffer = new byte[64 * 1024];
+            long position = 0;
+            int newlines = 0;
+            int read;
+            while (next < dataLines.length && (read = in.read(buffer)) != -1) {
+                for (int i = 0; i < read && next < dataLines.length; i++) {
+                    if (buffer[i] == '\n') {
+                        newlines++;
+                        // data line n starts after newline n + 1, the first one ends the header
+                        while (next < dataLines.length && dataLines[next] + 1 == newlines) {
+                            offsets[next++] = position + i + 1;
+                        }
+                    }
+                }
+                position += read;
+            }
+            while (next < dataLines.length) {
+                offsets[next++] = position;
+            }
+            return offsets;
+        } catch (IOException e) {
+            throw new ItemStreamException("Could not read " + resource, e);
+        }
+    }
+
+    public static int countDataLines(Resource resource) {
+        return countDataLines(resource, true);
+    }
+
+    /**
+     * Counts only the data lines ending in a newline. A last line that is still being appended is left
+     * for the next run, like ByteRangePartitioner.completeLinesEnd does for the mapped reader.
+     */
+    public static int countCompleteDataLines(Resource resource) {
+        return countDataLines(resource, false);
+    }
+
+    private static int countDataLines(Resource resource, boolean countUnterminatedLine) {
+        try (InputStream in = resource.getInputStream()) {
+            byte[] buffer = new byte[64 * 1024];
+            int lines = 0;
+            int last = '\n';
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        lines++;
+                    }
+                }
+                if (read > 0) {
+                    last = buffer[read - 1];
+                }
+            }
+            if (last != '\n' && countUnterminatedLine) {
+                lines++; // last line without a trailing newline
+            }
+            return Math.max(lines - 1, 0); // minus the header line
+        } catch (IOException e) {
+            throw new ItemStreamException("Could not count lines of " + resource, e);
+        }
+    }
+}
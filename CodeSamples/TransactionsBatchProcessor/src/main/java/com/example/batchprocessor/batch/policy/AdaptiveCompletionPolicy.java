@@ -0,0 +1,64 @@
+package com.example.batchprocessor.batch.policy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
+
+import java.time.Duration;
+
+/**
+ * A commit interval that follows the commit latency: after every full chunk the size is moved towards
+ * the size that would have taken the target time (half way, to damp noise), within [minSize, maxSize].
+ * Chunks cut short by the end of the input do not change the size.
+ *
+ * Keeps per-step state, so it has to be step scoped and registered as a ChunkListener on the same step.
+ */
+public class AdaptiveCompletionPolicy extends SimpleCompletionPolicy implements ChunkListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveCompletionPolicy.class);
+
+    private final int minSize;
+    private final int maxSize;
+    private final long targetNanos;
+
+    private RepeatContext current;
+    private long chunkStart;
+
+    public AdaptiveCompletionPolicy(int initialSize, int minSize, int maxSize, Duration targetCommitLatency) {
+        super(Math.max(minSize, Math.min(maxSize, initialSize)));
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.targetNanos = targetCommitLatency.toNanos();
+    }
+
+    @Override
+    public RepeatContext start(RepeatContext context) {
+        current = super.start(context);
+        return current;
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        chunkStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        long elapsed = Math.max(System.nanoTime() - chunkStart, 1);
+        int size = getChunkSize();
+        if (current == null || current.getStartedCount() < size) {
+            return;
+        }
+
+        long ideal = size * targetNanos / elapsed;
+        int next = (int) Math.max(minSize, Math.min(maxSize, (size + ideal) / 2));
+        if (next != size) {
+            logger.info("{}: chunk of {} took {} ms (target {} ms), chunk size {} -> {}",
+                    context.getStepContext().getStepName(), size, elapsed / 1_000_000, targetNanos / 1_000_000, size, next);
+            setChunkSize(next);
+        }
+    }
+}
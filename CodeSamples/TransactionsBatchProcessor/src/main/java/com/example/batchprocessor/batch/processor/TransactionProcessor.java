@@ -1,28 +1,130 @@
 package com.example.batchprocessor.batch.processor;
 
+import com.example.batchprocessor.batch.processor.rule.TransactionRule;
+import com.example.batchprocessor.batch.processor.rule.TransactionRules;
 import com.example.batchprocessor.model.FailedTransaction;
 import com.example.batchprocessor.model.SuccessfulTransaction;
 import com.example.batchprocessor.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.annotation.AfterStep;
+import org.springframework.batch.core.annotation.BeforeStep;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
 import org.springframework.batch.item.ItemProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.util.StringUtils;
 
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Classifies transactions with the rules configured under batch.rules.*. The rules are compiled once,
+ * at the start of the first step, and each transaction is copied exactly once into its result entity.
+ * The rule hits are counted per step execution; after each step they are logged and stored in the
+ * step's ExecutionContext under {@code rules.<rule>.hits}.
+ */
 public class TransactionProcessor implements ItemProcessor<Transaction, Transaction> {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionProcessor.class);
+
+    @Value("${batch.rules.amount.greater-than:0}")
+    private Double amountGreaterThan;
+
+    @Value("${batch.rules.amount.at-most:#{null}}")
+    private Double amountAtMost;
+
+    @Value("${batch.rules.allowed-types:}")
+    private String[] allowedTypes;
+
+    @Value("${batch.rules.account-number.digits:0}")
+    private int accountNumberDigits;
+
+    @Value("${batch.rules.timestamp.from:}")
+    private String timestampFrom;
+
+    @Value("${batch.rules.timestamp.to:}")
+    private String timestampTo;
+
+    private volatile TransactionRules rules;
+
+    // per step execution, one counter per rule
+    private final Map<Long, LongAdder[]> hits = new ConcurrentHashMap<>();
+
+    public TransactionProcessor() {
+    }
+
+    // For use outside of Spring, with rules compiled by the caller
+    public TransactionProcessor(TransactionRules rules) {
+        this.rules = rules;
+    }
+
+    @BeforeStep
+    public void compileRules(StepExecution stepExecution) {
+        TransactionRules compiled = rules();
+        LongAdder[] stepHits = compiled.newHitCounters();
+        int i = 0;
+        for (String rule : compiled.hitCounts(stepHits).keySet()) { // a restart continues the counts
+            stepHits[i++].add(stepExecution.getExecutionContext().getLong(hitsKey(rule), 0L));
+        }
+        hits.put(stepExecution.getId(), stepHits);
+    }
+
     @Override
     public Transaction process(Transaction transaction) throws Exception {
-        if (transaction.getAmount().compareTo(0.0) > 0) {
-            SuccessfulTransaction successfulTransaction = new SuccessfulTransaction();
-            successfulTransaction.setAccountNumber(transaction.getAccountNumber());
-            successfulTransaction.setAmount(transaction.getAmount());
-            successfulTransaction.setType(transaction.getType());
-            successfulTransaction.setTimestamp(transaction.getTimestamp());
-            return successfulTransaction; // Valid transaction
-        } else {
-            FailedTransaction failedTransaction = new FailedTransaction();
-            failedTransaction.setAccountNumber(transaction.getAccountNumber());
-            failedTransaction.setAmount(transaction.getAmount());
-            failedTransaction.setType(transaction.getType());
-            failedTransaction.setTimestamp(transaction.getTimestamp());
-            failedTransaction.setFailureReason("Invalid amount");
-            return failedTransaction; // Invalid transaction
+        TransactionRule failedRule = rules().firstFailed(transaction, stepHits());
+        if (failedRule == null) {
+            return new SuccessfulTransaction(transaction); // Valid transaction
         }
+        return new FailedTransaction(transaction, failedRule.failureReason()); // Invalid transaction
+    }
+
+    @AfterStep
+    public void reportRuleHits(StepExecution stepExecution) {
+        LongAdder[] stepHits = hits.remove(stepExecution.getId());
+        Map<String, Long> hitCounts = rules().hitCounts(stepHits == null ? rules().newHitCounters() : stepHits);
+        hitCounts.forEach((rule, count) -> stepExecution.getExecutionContext().putLong(hitsKey(rule), count));
+        logger.info("Rule hits after {}: {}", stepExecution.getStepName(), hitCounts);
+    }
+
+    private LongAdder[] stepHits() {
+        StepContext stepContext = StepSynchronizationManager.getContext();
+        Long stepExecutionId = stepContext == null ? -1L : stepContext.getStepExecution().getId();
+        return hits.computeIfAbsent(stepExecutionId, id -> rules().newHitCounters());
+    }
+
+    private static String hitsKey(String rule) {
+        return "rules." + rule + ".hits";
+    }
+
+    private TransactionRules rules() {
+        TransactionRules compiled = rules;
+        if (compiled == null) {
+            synchronized (this) {
+                compiled = rules;
+                if (compiled == null) {
+                    compiled = TransactionRules.compile(amountGreaterThan, amountAtMost,
+                            toSet(allowedTypes), accountNumberDigits,
+                            toDateTime(timestampFrom), toDateTime(timestampTo));
+                    rules = compiled;
+                }
+            }
+        }
+        return compiled;
+    }
+
+    private static Set<String> toSet(String[] values) {
+        return values == null ? Set.of()
+                : Arrays.stream(values).map(String::trim).filter(StringUtils::hasText).collect(Collectors.toSet());
+    }
+
+    private static LocalDateTime toDateTime(String value) {
+        return StringUtils.hasText(value) ? LocalDateTime.parse(value.trim()) : null;
     }
 }
@@ -0,0 +1,266 @@
+package com.example.batchprocessor.batch.processor.dedup;
+
+import com.example.batchprocessor.model.FailedTransaction;
+import com.example.batchprocessor.model.SuccessfulTransaction;
+import com.example.batchprocessor.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wraps the classifying processor and turns a successful transaction that was already seen, with the same
+ * account number, amount, type and timestamp, into a FailedTransaction "Duplicate transaction".
+ *
+ * Every row is first checked against an exact window of the most recent rows, which also covers rows
+ * not committed yet. The window remembers which input item each key came from, so an item processed
+ * again after a rollback is not mistaken for its own duplicate. Older rows are tracked in a {@link ScalableBloomFilter}; when it reports a possible
+ * duplicate, successful_transaction is queried to tell a real duplicate from a false positive. Both
+ * checks are O(1) per row and the filter is the only part that grows, by about 1.2 bytes per row.
+ * A row with the same transactionId is the same transaction delivered again (a rerun, a restart or an
+ * overlapping file), never a duplicate: neither check counts it.
+ *
+ * The filter is too large for the ExecutionContext. Instead it is rebuilt from successful_transaction
+ * when the first step of a job execution opens, which also covers rows committed before a restart and
+ * by earlier runs. Only rows within batch.dedup.seed-window-days of the newest one are loaded, so older
+ * transactions are not checked for duplicates. The ExecutionContext keeps the step's counters.
+ */
+public class DuplicateTransactionProcessor implements ItemProcessor<Transaction, Transaction>, ItemStream {
+
+    public static final String FAILURE_REASON = "Duplicate transaction";
+
+    private static final Logger logger = LoggerFactory.getLogger(DuplicateTransactionProcessor.class);
+
+    private static final String SEED_SQL = "SELECT account_number, amount, type, timestamp FROM successful_transaction";
+    private static final String NEWEST_SQL = "SELECT MAX(timestamp) FROM successful_transaction";
+    private static final String EXISTS_SQL = "SELECT COUNT(*) FROM successful_transaction"
+            + " WHERE account_number = ? AND amount = ? AND type = ? AND timestamp = ?";
+    private static final String OTHER_TRANSACTION = " AND (transaction_id IS NULL OR transaction_id <> ?)";
+
+    // ExecutionContext keys of the step's counters
+    private static final String DUPLICATES = "duplicateTransactionProcessor.duplicates";
+    private static final String DATABASE_CHECKS = "duplicateTransactionProcessor.databaseChecks";
+
+    private final ItemProcessor<Transaction, Transaction> delegate;
+    private final JdbcTemplate jdbcTemplate;
+    private final long expectedRows;
+    private final double falsePositiveRate;
+    private final Duration seedWindow;
+    private final RecentKeys recent;
+
+    private volatile ScalableBloomFilter filter;
+    private Long seededFor;
+
+    // per step execution: duplicates, database checks
+    private final Map<Long, LongAdder[]> counters = new ConcurrentHashMap<>();
+
+    public DuplicateTransactionProcessor(ItemProcessor<Transaction, Transaction> delegate, DataSource dataSource,
+                                         long expectedRows, double falsePositiveRate, int recentWindow,
+                                         Duration seedWindow) {
+        this.delegate = delegate;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(10_000);
+        this.expectedRows = expectedRows;
+        this.falsePositiveRate = falsePositiveRate;
+        this.seedWindow = seedWindow;
+        this.recent = new RecentKeys(recentWindow);
+    }
+
+    @Override
+    public Transaction process(Transaction item) throws Exception {
+        Transaction transaction = delegate.process(item);
+        if (!(transaction instanceof SuccessfulTransaction)) {
+            return transaction;
+        }
+        Key key = Key.of(transaction);
+        Transaction seenWith = recent.add(key, item);
+        if (seenWith == item || seenWith != null && sameTransaction(seenWith, item)) {
+            return transaction; // processed again after a rollback, or delivered twice
+        }
+        if (seenWith != null || !filter.put(key.hash1(), key.hash2()) && existsInDatabase(key, item.getTransactionId())) {
+            counters(DUPLICATES).increment();
+            return new FailedTransaction(transaction, FAILURE_REASON);
+        }
+        return transaction;
+    }
+
+    @Override
+    public synchronized void open(ExecutionContext executionContext) {
+        StepContext stepContext = StepSynchronizationManager.getContext();
+        Long jobExecutionId = stepContext == null ? null : stepContext.getStepExecution().getJobExecutionId();
+        if (filter == null || jobExecutionId == null || !jobExecutionId.equals(seededFor)) {
+            seed();
+            seededFor = jobExecutionId;
+        }
+        if (stepContext != null) {
+            counters.put(stepContext.getStepExecution().getId(), new LongAdder[]{
+                    adder(executionContext.getLong(DUPLICATES, 0L)),
+                    adder(executionContext.getLong(DATABASE_CHECKS, 0L))});
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        LongAdder[] stepCounters = stepCounters();
+        executionContext.putLong(DUPLICATES, stepCounters[0].sum());
+        executionContext.putLong(DATABASE_CHECKS, stepCounters[1].sum());
+    }
+
+    @Override
+    public void close() {
+        StepContext stepContext = StepSynchronizationManager.getContext();
+        if (stepContext != null) {
+            LongAdder[] stepCounters = counters.remove(stepContext.getStepExecution().getId());
+            if (stepCounters != null) {
+                logger.info("{}: {} duplicates, {} database checks", stepContext.getStepName(),
+                        stepCounters[0].sum(), stepCounters[1].sum());
+            }
+        }
+    }
+
+    private void seed() {
+        ScalableBloomFilter seeded = new ScalableBloomFilter(expectedRows, falsePositiveRate);
+        long[] rows = new long[1];
+        RowCallbackHandler put = rs -> {
+            Key key = new Key(rs.getString(1), rs.getObject(2, Double.class), rs.getString(3),
+                    rs.getTimestamp(4) == null ? null : rs.getTimestamp(4).getTime());
+            seeded.put(key.hash1(), key.hash2());
+            rows[0]++;
+        };
+        Timestamp newest = seedWindow.isZero() ? null : jdbcTemplate.queryForObject(NEWEST_SQL, Timestamp.class);
+        if (newest == null) {
+            jdbcTemplate.query(SEED_SQL, put);
+        } else {
+            jdbcTemplate.query(SEED_SQL + " WHERE timestamp >= ?", put, new Timestamp(newest.getTime() - seedWindow.toMillis()));
+        }
+        recent.clear();
+        filter = seeded;
+        logger.info("Duplicate filter seeded with {} transactions ({} KB)", rows[0], seeded.bitSize() / 8 / 1024);
+    }
+
+    private boolean existsInDatabase(Key key, Long transactionId) {
+        if (key.accountNumber() == null || key.amount() == null || key.type() == null || key.timestamp() == null) {
+            return false;
+        }
+        counters(DATABASE_CHECKS).increment();
+        Integer count = transactionId == null
+                ? jdbcTemplate.queryForObject(EXISTS_SQL, Integer.class,
+                        key.accountNumber(), key.amount(), key.type(), new Timestamp(key.timestamp()))
+                : jdbcTemplate.queryForObject(EXISTS_SQL + OTHER_TRANSACTION, Integer.class,
+                        key.accountNumber(), key.amount(), key.type(), new Timestamp(key.timestamp()), transactionId);
+        return count != null && count > 0;
+    }
+
+    private static boolean sameTransaction(Transaction a, Transaction b) {
+        return a.getTransactionId() != null && a.getTransactionId().equals(b.getTransactionId());
+    }
+
+    private LongAdder counters(String name) {
+        return stepCounters()[DUPLICATES.equals(name) ? 0 : 1];
+    }
+
+    private LongAdder[] stepCounters() {
+        StepContext stepContext = StepSynchronizationManager.getContext();
+        Long stepExecutionId = stepContext == null ? -1L : stepContext.getStepExecution().getId();
+        return counters.computeIfAbsent(stepExecutionId, id -> new LongAdder[]{new LongAdder(), new LongAdder()});
+    }
+
+    private static LongAdder adder(long value) {
+        LongAdder adder = new LongAdder();
+        adder.add(value);
+        return adder;
+    }
+
+    record Key(String accountNumber, Double amount, String type, Long timestamp) {
+
+        static Key of(Transaction transaction) {
+            Date timestamp = transaction.getTimestamp();
+            return new Key(transaction.getAccountNumber(), transaction.getAmount(), transaction.getType(),
+                    timestamp == null ? null : timestamp.getTime());
+        }
+
+        long hash1() {
+            return mix(fields(0xcbf29ce484222325L));
+        }
+
+        long hash2() {
+            return mix(fields(0x84222325cbf29ce4L) ^ 0x9e3779b97f4a7c15L) | 1; // odd, so the probe sequence spreads
+        }
+
+        private long fields(long h) {
+            h = string(h, accountNumber);
+            h = (h ^ (amount == null ? 0 : Double.doubleToLongBits(amount))) * 0x100000001b3L;
+            h = string(h, type);
+            return (h ^ (timestamp == null ? 0 : timestamp)) * 0x100000001b3L;
+        }
+
+        // FNV-1a over the chars
+        private static long string(long h, String value) {
+            if (value == null) {
+                return h * 0x100000001b3L;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                h = (h ^ value.charAt(i)) * 0x100000001b3L;
+            }
+            return (h ^ 0xff) * 0x100000001b3L; // separates adjacent fields
+        }
+
+        // MurmurHash3 finalizer
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+
+    // The last `size` keys added and the items they came from, for an exact check of recent rows
+    private static final class RecentKeys {
+        private final Map<Key, Transaction> keys;
+        private final AtomicReferenceArray<Key> ring;
+        private final AtomicLong cursor = new AtomicLong();
+
+        RecentKeys(int size) {
+            this.keys = new ConcurrentHashMap<>(size * 2);
+            this.ring = new AtomicReferenceArray<>(size);
+        }
+
+        // the item the key was added with before, or null if it was not in the window
+        Transaction add(Key key, Transaction item) {
+            Transaction seenWith = keys.putIfAbsent(key, item);
+            if (seenWith != null) {
+                return seenWith;
+            }
+            Key evicted = ring.getAndSet((int) (cursor.getAndIncrement() % ring.length()), key);
+            if (evicted != null) {
+                keys.remove(evicted);
+            }
+            return null;
+        }
+
+        void clear() {
+            keys.clear();
+            for (int i = 0; i < ring.length(); i++) {
+                ring.set(i, null);
+            }
+            cursor.set(0);
+        }
+    }
+}
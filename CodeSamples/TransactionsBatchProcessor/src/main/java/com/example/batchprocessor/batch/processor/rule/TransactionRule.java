@@ -0,0 +1,36 @@
+package com.example.batchprocessor.batch.processor.rule;
+
+import com.example.batchprocessor.model.Transaction;
+
+import java.util.function.Predicate;
+
+/**
+ * A classification rule: a transaction that does not pass it is a FailedTransaction with the rule's failure reason.
+ */
+public interface TransactionRule {
+
+    String name();
+
+    String failureReason();
+
+    boolean passes(Transaction transaction);
+
+    static TransactionRule of(String name, String failureReason, Predicate<Transaction> predicate) {
+        return new TransactionRule() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public String failureReason() {
+                return failureReason;
+            }
+
+            @Override
+            public boolean passes(Transaction transaction) {
+                return predicate.test(transaction);
+            }
+        };
+    }
+}
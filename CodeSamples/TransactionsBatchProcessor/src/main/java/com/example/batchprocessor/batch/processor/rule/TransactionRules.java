@@ -0,0 +1,110 @@
+package com.example.batchprocessor.batch.processor.rule;
+
+import com.example.batchprocessor.model.Transaction;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The configured rules compiled into a flat array, evaluated in order. A hit is a transaction that failed
+ * the rule; evaluation stops at the first failed rule. The hits are counted in counters owned by the
+ * caller, one per rule, see {@link #newHitCounters}.
+ */
+public final class TransactionRules {
+
+    private final TransactionRule[] rules;
+
+    private TransactionRules(List<TransactionRule> rules) {
+        this.rules = rules.toArray(new TransactionRule[0]);
+    }
+
+    /**
+     * @param amountGreaterThan  amounts must be strictly greater than this, null to disable
+     * @param amountAtMost       amounts must be at most this, null to disable
+     * @param allowedTypes       accepted transaction types, empty to accept all
+     * @param accountNumberDigits exact number of digits of an account number, 0 to disable
+     * @param timestampFrom      earliest accepted timestamp (inclusive), null to disable
+     * @param timestampTo        latest accepted timestamp (exclusive), null to disable
+     */
+    public static TransactionRules compile(Double amountGreaterThan, Double amountAtMost, Set<String> allowedTypes,
+                                           int accountNumberDigits, LocalDateTime timestampFrom, LocalDateTime timestampTo) {
+        List<TransactionRule> rules = new ArrayList<>();
+        if (amountGreaterThan != null) {
+            double min = amountGreaterThan;
+            rules.add(TransactionRule.of("amountGreaterThan", "Invalid amount",
+                    t -> t.getAmount() != null && t.getAmount() > min));
+        }
+        if (amountAtMost != null) {
+            double max = amountAtMost;
+            rules.add(TransactionRule.of("amountAtMost", "Amount above limit",
+                    t -> t.getAmount() != null && t.getAmount() <= max));
+        }
+        if (!allowedTypes.isEmpty()) {
+            Set<String> types = Set.copyOf(allowedTypes);
+            rules.add(TransactionRule.of("allowedTypes", "Invalid type",
+                    t -> t.getType() != null && types.contains(t.getType())));
+        }
+        if (accountNumberDigits > 0) {
+            rules.add(TransactionRule.of("accountNumberDigits", "Invalid account number",
+                    t -> hasDigits(t.getAccountNumber(), accountNumberDigits)));
+        }
+        if (timestampFrom != null || timestampTo != null) {
+            long from = timestampFrom == null ? Long.MIN_VALUE : toEpochMilli(timestampFrom);
+            long to = timestampTo == null ? Long.MAX_VALUE : toEpochMilli(timestampTo);
+            rules.add(TransactionRule.of("timestampWindow", "Timestamp out of range",
+                    t -> t.getTimestamp() != null && t.getTimestamp().getTime() >= from && t.getTimestamp().getTime() < to));
+        }
+        return new TransactionRules(rules);
+    }
+
+    public LongAdder[] newHitCounters() {
+        LongAdder[] hits = new LongAdder[rules.length];
+        for (int i = 0; i < hits.length; i++) {
+            hits[i] = new LongAdder();
+        }
+        return hits;
+    }
+
+    /**
+     * Returns the first rule the transaction fails, or null if it passes all of them. The hit is counted in hits.
+     */
+    public TransactionRule firstFailed(Transaction transaction, LongAdder[] hits) {
+        for (int i = 0; i < rules.length; i++) {
+            if (!rules[i].passes(transaction)) {
+                hits[i].increment();
+                return rules[i];
+            }
+        }
+        return null;
+    }
+
+    public Map<String, Long> hitCounts(LongAdder[] hits) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < rules.length; i++) {
+            counts.put(rules[i].name(), hits[i].sum());
+        }
+        return counts;
+    }
+
+    private static boolean hasDigits(String value, int digits) {
+        if (value == null || value.length() != digits) {
+            return false;
+        }
+        for (int i = 0; i < digits; i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
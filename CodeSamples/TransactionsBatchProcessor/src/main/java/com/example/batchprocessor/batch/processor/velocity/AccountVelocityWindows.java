@@ -0,0 +1,100 @@
+package com.example.batchprocessor.batch.processor.velocity;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * The most recent debit timestamps per account, in lock-striped hash maps: an account always maps to the
+ * same stripe, so threads only contend when their accounts share a stripe. Each account keeps a ring of
+ * at most {@code capacity} events, and accounts without an event inside the window are dropped
+ * periodically, so memory follows the number of recently active accounts.
+ *
+ * Events carry an id, so recording the same event twice (a chunk processed again after a rollback)
+ * does not count it twice.
+ */
+public class AccountVelocityWindows {
+
+    private static final int STRIPES = 64;
+    private static final int SWEEP_INTERVAL = 1 << 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final int capacity;
+    private final long windowMillis;
+
+    public AccountVelocityWindows(int capacity, long windowMillis) {
+        this.capacity = capacity;
+        this.windowMillis = windowMillis;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Records the event and returns how many other events of the account lie within the window around it.
+     */
+    public int record(String accountNumber, long timestamp, long eventId) {
+        int h = accountNumber.hashCode();
+        Stripe stripe = stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+        synchronized (stripe) {
+            Ring ring = stripe.accounts.computeIfAbsent(accountNumber, account -> new Ring(capacity));
+            int recent = ring.countWithin(timestamp, windowMillis, eventId);
+            ring.add(timestamp, eventId);
+            stripe.latest = Math.max(stripe.latest, timestamp);
+            if (++stripe.operations % SWEEP_INTERVAL == 0) {
+                stripe.sweep(windowMillis);
+            }
+            return recent;
+        }
+    }
+
+    private static final class Stripe {
+        final Map<String, Ring> accounts = new HashMap<>();
+        long latest = Long.MIN_VALUE;
+        long operations;
+
+        void sweep(long windowMillis) {
+            for (Iterator<Ring> rings = accounts.values().iterator(); rings.hasNext(); ) {
+                if (rings.next().latest < latest - windowMillis) {
+                    rings.remove();
+                }
+            }
+        }
+    }
+
+    private static final class Ring {
+        final long[] timestamps;
+        final long[] eventIds;
+        int size;
+        int next;
+        long latest = Long.MIN_VALUE;
+
+        Ring(int capacity) {
+            this.timestamps = new long[capacity];
+            this.eventIds = new long[capacity];
+        }
+
+        int countWithin(long timestamp, long windowMillis, long eventId) {
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (eventIds[i] != eventId && Math.abs(timestamps[i] - timestamp) < windowMillis) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        void add(long timestamp, long eventId) {
+            for (int i = 0; i < size; i++) {
+                if (eventIds[i] == eventId) {
+                    return; // already recorded
+                }
+            }
+            timestamps[next] = timestamp;
+            eventIds[next] = eventId;
+            next = (next + 1) % timestamps.length;
+            size = Math.min(size + 1, timestamps.length);
+            latest = Math.max(latest, timestamp);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.batchprocessor.batch.processor.velocity;
+
+import com.example.batchprocessor.model.FailedTransaction;
+import com.example.batchprocessor.model.SuccessfulTransaction;
+import com.example.batchprocessor.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemStream;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wraps the classifying processor and flags bursts: a successful debit that is more than maxDebits
+ * debits of its account within the window becomes a FailedTransaction. The windows are shared by all
+ * threads and partitions. They assume the input is roughly in time order, as the feeds are. With
+ * partitions processing the same period in parallel, a burst split across partitions is still seen,
+ * but only once its debits have been processed.
+ *
+ * The flags are counted per step execution and stored in its ExecutionContext under velocity.flagged.
+ * ItemStream calls are passed on to the delegate, as the step only sees the outermost processor.
+ */
+public class VelocityScoringProcessor implements ItemProcessor<Transaction, Transaction>, ItemStream, StepExecutionListener {
+
+    public static final String FLAGGED = "velocity.flagged";
+
+    private static final Logger logger = LoggerFactory.getLogger(VelocityScoringProcessor.class);
+
+    private final ItemProcessor<Transaction, Transaction> delegate;
+    private final int maxDebits;
+    private final String failureReason;
+    private final AccountVelocityWindows windows;
+
+    // per step execution
+    private final Map<Long, LongAdder> flagged = new ConcurrentHashMap<>();
+
+    // event ids of items without a transactionId, kept while the item is alive (Transaction has no equals,
+    // so items are compared by identity); one sequence for all steps, as partitions share the windows
+    private final Map<Transaction, Long> generatedIds = Collections.synchronizedMap(new WeakHashMap<>());
+    private final AtomicLong sequence = new AtomicLong(Long.MIN_VALUE);
+
+    public VelocityScoringProcessor(ItemProcessor<Transaction, Transaction> delegate, int maxDebits, Duration window) {
+        this.delegate = delegate;
+        this.maxDebits = maxDebits;
+        this.failureReason = "Velocity limit exceeded: more than " + maxDebits + " debits within " + window.toSeconds() + "s";
+        this.windows = new AccountVelocityWindows(maxDebits, window.toMillis());
+    }
+
+    @Override
+    public Transaction process(Transaction item) throws Exception {
+        Transaction transaction = delegate.process(item);
+        if (!(transaction instanceof SuccessfulTransaction) || !"debit".equals(transaction.getType())
+                || transaction.getAccountNumber() == null || transaction.getTimestamp() == null) {
+            return transaction;
+        }
+        // the input item is the same object when a chunk is processed again, so it gets the same id
+        long eventId = item.getTransactionId() != null ? item.getTransactionId()
+                : generatedIds.computeIfAbsent(item, unidentified -> sequence.getAndIncrement());
+        if (windows.record(transaction.getAccountNumber(), transaction.getTimestamp().getTime(), eventId) >= maxDebits) {
+            stepFlagged().increment();
+            return new FailedTransaction(transaction, failureReason);
+        }
+        return transaction;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        LongAdder stepFlagged = new LongAdder();
+        stepFlagged.add(stepExecution.getExecutionContext().getLong(FLAGGED, 0L)); // a restart continues the count
+        flagged.put(stepExecution.getId(), stepFlagged);
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        LongAdder stepFlagged = flagged.remove(stepExecution.getId());
+        long count = stepFlagged == null ? 0 : stepFlagged.sum();
+        stepExecution.getExecutionContext().putLong(FLAGGED, count);
+        logger.info("Velocity flags after {}: {}", stepExecution.getStepName(), count);
+        return null;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        if (delegate instanceof ItemStream stream) {
+            stream.open(executionContext);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        if (delegate instanceof ItemStream stream) {
+            stream.update(executionContext);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (delegate instanceof ItemStream stream) {
+            stream.close();
+        }
+    }
+
+    private LongAdder stepFlagged() {
+        StepContext stepContext = StepSynchronizationManager.getContext();
+        Long stepExecutionId = stepContext == null ? -1L : stepContext.getStepExecution().getId();
+        return flagged.computeIfAbsent(stepExecutionId, id -> new LongAdder());
+    }
+}
@@ -1,34 +1,141 @@
 package com.example.batchprocessor.batch.reader;
 
 import com.example.batchprocessor.model.Transaction;
+import org.springframework.batch.item.ItemStreamException;
 import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.file.MultiResourceItemReader;
 
 import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
+import org.springframework.batch.item.file.builder.MultiResourceItemReaderBuilder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
 
 public class CSVReader {
 
     @Value("${input.file.name}")
     private String inputFileName;
 
+    @Value("${input.files:}")
+    private String inputFiles;
+
+    public Resource inputResource() {
+        return new ClassPathResource(inputFileName);
+    }
+
+    /**
+     * Whether input.files is set, in which case the job reads those files instead of input.file.name.
+     */
+    public boolean hasInputFiles() {
+        return !inputFiles.isBlank();
+    }
+
+    /**
+     * The files matching the input.files pattern (e.g. file:/data/drops/*.csv.gz), decompressed while read.
+     */
+    public Resource[] inputResources() {
+        try {
+            return Arrays.stream(new PathMatchingResourcePatternResolver().getResources(inputFiles))
+                    .map(DecompressingResource::new)
+                    .toArray(Resource[]::new);
+        } catch (IOException e) {
+            throw new ItemStreamException("Could not resolve " + inputFiles, e);
+        }
+    }
+
+    /**
+     * The input as a file on disk, needed for memory mapping (not available when it is packaged in a jar).
+     */
+    public Path inputPath() {
+        try {
+            return inputResource().getFile().toPath();
+        } catch (IOException e) {
+            throw new ItemStreamException(inputFileName + " is not a file on disk", e);
+        }
+    }
+
     public FlatFileItemReader<Transaction> transactionReader() {
+        return transactionReader(inputResource());
+    }
+
+    public FlatFileItemReader<Transaction> transactionReader(Resource resource) {
         return new FlatFileItemReaderBuilder<Transaction>()
                 .name("transactionItemReader")
-                .resource(new ClassPathResource(inputFileName))
+                .resource(resource)
                 .delimited()
                 .delimiter(",")
                 .names("transactionId", "accountNumber", "amount", "type", "timestamp")
                 .linesToSkip(1)
                 .fieldSetMapper(fieldSet -> {
                     Transaction transaction = new Transaction();
-                    transaction.setId(fieldSet.readLong("transactionId"));
+                    transaction.setTransactionId(fieldSet.readLong("transactionId"));
                     transaction.setAccountNumber(fieldSet.readString("accountNumber"));
                     transaction.setAmount(fieldSet.readDouble("amount"));
                     transaction.setType(fieldSet.readString("type"));
-                    transaction.setTimestamp(fieldSet.readDate("timestamp"));
+                    transaction.setTimestamp(parseTimestamp(fieldSet.readString("timestamp")));
                     return transaction;
                 })
                 .build();
     }
+
+    /**
+     * Reads only the data lines in [fromLine, toLine), starting at fromOffset, the byte offset where
+     * fromLine starts, so the lines before the range are not read. The read count within the range is
+     * kept in the step's ExecutionContext, so a restarted partition resumes where it stopped.
+     */
+    public FlatFileItemReader<Transaction> transactionReader(long fromOffset, int fromLine, int toLine) {
+        FlatFileItemReader<Transaction> reader = transactionReader(new OffsetResource(inputResource(), fromOffset));
+        reader.setLinesToSkip(0); // the header lies before the offset
+        reader.setMaxItemCount(toLine - fromLine);
+        return reader;
+    }
+
+    /**
+     * Reads only the data lines in [fromLine, toLine), for partitions stored without their byte offset.
+     * The reader reads and drops all lines before fromLine.
+     */
+    public FlatFileItemReader<Transaction> transactionReader(int fromLine, int toLine) {
+        FlatFileItemReader<Transaction> reader = transactionReader();
+        reader.setCurrentItemCount(fromLine);
+        reader.setMaxItemCount(toLine);
+        return reader;
+    }
+
+    /**
+     * Reads the input files one after the other, ordered by file name. The index of the current file
+     * and the line within it are kept in the ExecutionContext, so a restart resumes in the right file.
+     */
+    public MultiResourceItemReader<Transaction> multiResourceTransactionReader() {
+        return new MultiResourceItemReaderBuilder<Transaction>()
+                .name("multiResourceTransactionItemReader")
+                .resources(inputResources())
+                .delegate(transactionReader((Resource) null))
+                .build();
+    }
+
+    public MappedTransactionItemReader mappedTransactionReader() {
+        return new MappedTransactionItemReader(inputPath());
+    }
+
+    /**
+     * Reads only the lines starting in the byte range [startOffset, endOffset).
+     */
+    public MappedTransactionItemReader mappedTransactionReader(long startOffset, long endOffset) {
+        return new MappedTransactionItemReader(inputPath(), startOffset, endOffset);
+    }
+
+    // Same format as MappedTransactionItemReader: yyyy-MM-dd or ISO local date-time, in the system time zone
+    private static Date parseTimestamp(String value) {
+        LocalDateTime dateTime = value.length() == 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
 }
\ No newline at end of file
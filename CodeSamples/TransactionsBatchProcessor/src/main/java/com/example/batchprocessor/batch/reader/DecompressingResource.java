@@ -0,0 +1,93 @@
+package com.example.batchprocessor.batch.reader;
+
+import com.github.luben.zstd.ZstdInputStream;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A resource whose input stream is decompressed on the fly when the file is gzip or zstd compressed,
+ * recognised by its magic bytes rather than its name. Nothing is inflated to disk; uncompressed files
+ * are passed through as they are.
+ */
+public class DecompressingResource extends AbstractResource {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Resource delegate;
+
+    public DecompressingResource(Resource delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        InputStream in = new BufferedInputStream(delegate.getInputStream(), BUFFER_SIZE);
+        in.mark(4);
+        int b0 = in.read();
+        int b1 = in.read();
+        int b2 = in.read();
+        int b3 = in.read();
+        in.reset();
+
+        if (b0 == 0x1f && b1 == 0x8b) {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        }
+        if (b0 == 0x28 && b1 == 0xb5 && b2 == 0x2f && b3 == 0xfd) {
+            return new BufferedInputStream(new ZstdInputStream(in), BUFFER_SIZE);
+        }
+        return in;
+    }
+
+    @Override
+    public boolean exists() {
+        return delegate.exists();
+    }
+
+    @Override
+    public boolean isFile() {
+        return delegate.isFile();
+    }
+
+    @Override
+    public URL getURL() throws IOException {
+        return delegate.getURL();
+    }
+
+    @Override
+    public URI getURI() throws IOException {
+        return delegate.getURI();
+    }
+
+    @Override
+    public File getFile() throws IOException {
+        return delegate.getFile();
+    }
+
+    @Override
+    public String getFilename() {
+        return delegate.getFilename();
+    }
+
+    @Override
+    public String getDescription() {
+        return "decompressing " + delegate.getDescription();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof DecompressingResource resource && delegate.equals(resource.delegate);
+    }
+
+    @Override
+    public int hashCode() {
+        return delegate.hashCode();
+    }
+}
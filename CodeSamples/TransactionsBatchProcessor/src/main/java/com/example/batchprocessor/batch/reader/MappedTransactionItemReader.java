@@ -0,0 +1,338 @@
+package com.example.batchprocessor.batch.reader;
+
+import com.example.batchprocessor.model.Transaction;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.file.FlatFileParseException;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * Reads transactions straight from a memory-mapped input file. Delimiters are found by scanning the
+ * mapped bytes and the numeric fields are parsed in place, so the only Strings created per row are
+ * the ones stored on the Transaction.
+ *
+ * The reader covers the byte range [startOffset, endOffset). A line belongs to the range its first
+ * byte falls into, so adjacent ranges never read the same line. The offset of the next line is saved
+ * in the ExecutionContext, which is where a restart picks up.
+ */
+public class MappedTransactionItemReader implements ItemStreamReader<Transaction> {
+
+    public static final String NAME = "mappedTransactionItemReader";
+    /** ExecutionContext key of the offset of the next line, updated at every commit. */
+    public static final String OFFSET_KEY = NAME + ".offset";
+
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+    private static final int MAX_LINE_LENGTH = 4096;
+    private static final int FIELD_COUNT = 5;
+
+    private static final byte[] CREDIT = "credit".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DEBIT = "debit".getBytes(StandardCharsets.US_ASCII);
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    private final Path path;
+    private final long startOffset;
+    private final long endOffset;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final int[] delimiters = new int[FIELD_COUNT - 1];
+
+    private FileChannel channel;
+    private long fileSize;
+    private long rangeEnd;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+
+    public MappedTransactionItemReader(Path path) {
+        this(path, 0, -1);
+    }
+
+    /**
+     * @param endOffset exclusive end of the range, or -1 for the end of the file
+     */
+    public MappedTransactionItemReader(Path path, long startOffset, long endOffset) {
+        this.path = path;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            fileSize = channel.size();
+        } catch (IOException e) {
+            throw new ItemStreamException("Could not open " + path, e);
+        }
+        rangeEnd = endOffset < 0 ? fileSize : Math.min(endOffset, fileSize);
+
+        if (executionContext.containsKey(OFFSET_KEY)) {
+            position = executionContext.getLong(OFFSET_KEY);
+        } else if (startOffset == 0) {
+            position = nextLineStart(0); // skip the header
+        } else if (byteAt(startOffset - 1) != '\n') {
+            position = nextLineStart(startOffset); // the line belongs to the previous range
+        } else {
+            position = startOffset;
+        }
+    }
+
+    @Override
+    public Transaction read() {
+        while (position < rangeEnd) {
+            ensureMapped(position);
+            long lineOffset = position;
+            int lineStart = (int) (position - windowStart);
+            int limit = window.limit();
+
+            int fields = 1;
+            int lineEnd = -1;
+            for (int i = lineStart; i < limit; i++) {
+                byte b = window.get(i);
+                if (b == '\n') {
+                    lineEnd = i;
+                    break;
+                }
+                if (b == ',') {
+                    if (fields < FIELD_COUNT) {
+                        delimiters[fields - 1] = i;
+                    }
+                    fields++;
+                }
+            }
+            if (lineEnd < 0) {
+                if (windowStart + limit < fileSize) {
+                    position = nextLineStart(lineOffset);
+                    throw new FlatFileParseException("Line at offset " + lineOffset + " is longer than "
+                            + MAX_LINE_LENGTH + " bytes", "");
+                }
+                lineEnd = limit; // last line without a trailing newline
+            }
+            position = windowStart + lineEnd + 1;
+
+            int contentEnd = lineEnd;
+            if (contentEnd > lineStart && window.get(contentEnd - 1) == '\r') {
+                contentEnd--;
+            }
+            if (contentEnd == lineStart) {
+                continue; // blank line
+            }
+            if (fields != FIELD_COUNT) {
+                throw new FlatFileParseException("Expected " + FIELD_COUNT + " fields but found " + fields
+                        + " at offset " + lineOffset, text(lineStart, contentEnd));
+            }
+
+            try {
+                Transaction transaction = new Transaction();
+                transaction.setTransactionId(parseLong(lineStart, delimiters[0]));
+                transaction.setAccountNumber(text(delimiters[0] + 1, delimiters[1]));
+                transaction.setAmount(parseDouble(delimiters[1] + 1, delimiters[2]));
+                transaction.setType(type(delimiters[2] + 1, delimiters[3]));
+                transaction.setTimestamp(parseTimestamp(delimiters[3] + 1, contentEnd));
+                return transaction;
+            } catch (IllegalArgumentException | DateTimeException e) {
+                throw new FlatFileParseException("Parsing error at offset " + lineOffset + ": " + e.getMessage(),
+                        e, text(lineStart, contentEnd), 0);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        executionContext.putLong(OFFSET_KEY, position);
+    }
+
+    @Override
+    public void close() {
+        window = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new ItemStreamException("Could not close " + path, e);
+            } finally {
+                channel = null;
+            }
+        }
+    }
+
+    /**
+     * Maps a new window when the current one does not hold a full line starting at the given offset.
+     */
+    private void ensureMapped(long offset) {
+        if (window != null && offset >= windowStart) {
+            long windowEnd = windowStart + window.limit();
+            if (offset + MAX_LINE_LENGTH <= windowEnd || windowEnd == fileSize && offset < windowEnd) {
+                return;
+            }
+        }
+        try {
+            windowStart = offset;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(WINDOW_SIZE, fileSize - offset));
+        } catch (IOException e) {
+            throw new ItemStreamException("Could not map " + path + " at offset " + offset, e);
+        }
+    }
+
+    private byte byteAt(long offset) {
+        ensureMapped(offset);
+        return window.get((int) (offset - windowStart));
+    }
+
+    private long nextLineStart(long offset) {
+        for (long i = offset; i < fileSize; i++) {
+            if (byteAt(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return fileSize;
+    }
+
+    private String text(int from, int to) {
+        byte[] bytes = new byte[to - from];
+        window.get(from, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private String type(int from, int to) {
+        if (matches(from, to, CREDIT)) {
+            return "credit";
+        }
+        if (matches(from, to, DEBIT)) {
+            return "debit";
+        }
+        return text(from, to);
+    }
+
+    private boolean matches(int from, int to, byte[] expected) {
+        if (to - from != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (window.get(from + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long parseLong(int from, int to) {
+        from = skipSpaces(from, to);
+        to = trimSpaces(from, to);
+        boolean negative = from < to && window.get(from) == '-';
+        int i = negative ? from + 1 : from;
+        if (i == to) {
+            throw new IllegalArgumentException("Not a number: '" + text(from, to) + "'");
+        }
+        long value = 0;
+        for (; i < to; i++) {
+            int digit = window.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("Not a number: '" + text(from, to) + "'");
+            }
+            value = Math.multiplyExact(value, 10) + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses plain decimals such as -300.00 without allocating. The mantissa is kept below 2^53 and the
+     * scale below 16, so one division gives the same correctly rounded double as Double.parseDouble.
+     * Anything else (exponents, very long mantissas) falls back to Double.parseDouble.
+     */
+    private double parseDouble(int from, int to) {
+        from = skipSpaces(from, to);
+        to = trimSpaces(from, to);
+        byte first = from < to ? window.get(from) : 0;
+        boolean negative = first == '-';
+        int i = first == '-' || first == '+' ? from + 1 : from;
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; i < to; i++) {
+            byte b = window.get(i);
+            if (b == '.' && scale < 0) {
+                scale = 0;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9 || digits == 15) {
+                return Double.parseDouble(text(from, to));
+            }
+            mantissa = mantissa * 10 + digit;
+            digits++;
+            if (scale >= 0) {
+                scale++;
+            }
+        }
+        if (digits == 0) {
+            throw new IllegalArgumentException("Not a number: '" + text(from, to) + "'");
+        }
+        double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Accepts yyyy-MM-dd and yyyy-MM-ddTHH:mm[:ss], interpreted in the system time zone.
+     */
+    private Date parseTimestamp(int from, int to) {
+        from = skipSpaces(from, to);
+        to = trimSpaces(from, to);
+        int length = to - from;
+        if (length != 10 && length != 16 && length != 19
+                || window.get(from + 4) != '-' || window.get(from + 7) != '-'
+                || length > 10 && (window.get(from + 10) != 'T' || window.get(from + 13) != ':')
+                || length > 16 && window.get(from + 16) != ':') {
+            throw new IllegalArgumentException("Not a timestamp: '" + text(from, to) + "'");
+        }
+        int year = digits(from, 4);
+        int month = digits(from + 5, 2);
+        int day = digits(from + 8, 2);
+        int hour = length > 10 ? digits(from + 11, 2) : 0;
+        int minute = length > 10 ? digits(from + 14, 2) : 0;
+        int second = length > 16 ? digits(from + 17, 2) : 0;
+        LocalDateTime dateTime = LocalDateTime.of(year, month, day, hour, minute, second);
+        return Date.from(dateTime.atZone(zone).toInstant());
+    }
+
+    private int digits(int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = window.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("Unexpected character at position " + (i - from));
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private int skipSpaces(int from, int to) {
+        while (from < to && window.get(from) == ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    private int trimSpaces(int from, int to) {
+        while (to > from && window.get(to - 1) == ' ') {
+            to--;
+        }
+        return to;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.batchprocessor.batch.reader;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The content of a resource from a byte offset on. For a file the bytes before the offset are skipped
+ * with a seek, not read.
+ */
+public class OffsetResource extends AbstractResource {
+
+    private final Resource delegate;
+    private final long offset;
+
+    public OffsetResource(Resource delegate, long offset) {
+        this.delegate = delegate;
+        this.offset = offset;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        InputStream in = delegate.getInputStream();
+        try {
+            in.skipNBytes(offset);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return in;
+    }
+
+    @Override
+    public boolean exists() {
+        return delegate.exists();
+    }
+
+    @Override
+    public String getFilename() {
+        return delegate.getFilename();
+    }
+
+    @Override
+    public String getDescription() {
+        return delegate.getDescription() + " from byte " + offset;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof OffsetResource resource && delegate.equals(resource.delegate) && offset == resource.offset;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * delegate.hashCode() + Long.hashCode(offset);
+    }
+}
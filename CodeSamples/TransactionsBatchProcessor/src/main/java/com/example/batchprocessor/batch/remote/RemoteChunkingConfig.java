@@ -0,0 +1,153 @@
+package com.example.batchprocessor.batch.remote;
+
+import com.example.batchprocessor.batch.processor.TransactionProcessor;
+import com.example.batchprocessor.batch.writer.DeadLetterWriter;
+import com.example.batchprocessor.config.JobProgressTracker;
+import com.example.batchprocessor.config.StepMetricsListener;
+import com.example.batchprocessor.model.Transaction;
+import jakarta.annotation.PostConstruct;
+import org.springframework.batch.core.SkipListener;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.step.item.SimpleChunkProcessor;
+import org.springframework.batch.integration.chunk.ChunkProcessorChunkHandler;
+import org.springframework.batch.integration.chunk.RemoteChunkingManagerStepBuilderFactory;
+import org.springframework.batch.integration.config.annotation.EnableBatchIntegration;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.integration.channel.ExecutorChannel;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.dsl.IntegrationFlow;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Remote chunking for classifyTransactionJob. The manager step only reads: every chunk of rows is
+ * sent as a ChunkRequest on chunkRequests, a worker runs TransactionProcessor and the writer on it
+ * and answers on chunkReplies.
+ *
+ * Both channels are in-process here and stand in for the broker: chunkRequests hands each request
+ * to one of batch.remote-chunking.workers worker threads. To run the workers in their own JVMs,
+ * bridge the two channels to a JMS or AMQP queue (spring-integration-jms/-amqp) on both sides;
+ * the processor and writer do not change. Transaction is Serializable for that reason.
+ *
+ * Workers have no step of their own, so nothing on them runs step or chunk callbacks or opens streams.
+ * Duplicate detection, velocity scoring, account aggregation and the columnar writer depend on those and
+ * are rejected at startup.
+ */
+@Configuration
+@EnableBatchIntegration
+@ConditionalOnProperty(name = "batch.remote-chunking.enabled", havingValue = "true")
+public class RemoteChunkingConfig {
+
+    @Autowired
+    private RemoteChunkingManagerStepBuilderFactory managerStepBuilderFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("reader")
+    private ItemStreamReader<Transaction> reader;
+
+    @Autowired
+    private TransactionProcessor processor;
+
+    @Autowired
+    @Qualifier("writer")
+    private ItemWriter<Transaction> writer;
+
+    @Autowired
+    private DeadLetterWriter deadLetterWriter;
+
+    @Autowired
+    private StepMetricsListener stepMetricsListener;
+
+    @Autowired
+    private JobProgressTracker jobProgressTracker;
+
+    @Value("${batch.chunk.size:10}")
+    private int chunkSize;
+
+    @Value("${batch.fault-tolerance.skip-limit:1000}")
+    private int skipLimit;
+
+    @Value("${batch.remote-chunking.workers:4}")
+    private int workers;
+
+    @Value("${batch.dedup.enabled:false}")
+    private boolean dedup;
+
+    @Value("${batch.velocity.enabled:false}")
+    private boolean velocity;
+
+    @Value("${batch.aggregation.enabled:false}")
+    private boolean aggregation;
+
+    @Value("${batch.writer.mode:jpa}")
+    private String writerMode;
+
+    @PostConstruct
+    void checkSupportedModes() {
+        if (dedup || velocity || aggregation || "columnar".equals(writerMode)) {
+            throw new IllegalStateException("batch.remote-chunking.enabled does not support batch.dedup.enabled,"
+                    + " batch.velocity.enabled, batch.aggregation.enabled or batch.writer.mode=columnar");
+        }
+    }
+
+    @Bean
+    public ExecutorChannel chunkRequests() {
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("chunk-worker-");
+        taskExecutor.setConcurrencyLimit(workers);
+        return new ExecutorChannel(taskExecutor);
+    }
+
+    @Bean
+    public QueueChannel chunkReplies() {
+        return new QueueChannel();
+    }
+
+    // Manager
+    /**
+     * Malformed rows are skipped on the manager while reading. A chunk that fails on a worker fails
+     * the step, and a restart resumes after the last chunk the workers confirmed.
+     */
+    @Bean
+    public Step remoteTransactionStep() {
+        return managerStepBuilderFactory.<Transaction, Transaction>get("remoteTransactionStep")
+                .chunk(chunkSize)
+                .reader(reader)
+                .outputChannel(chunkRequests())
+                .inputChannel(chunkReplies())
+                .throttleLimit(2L * workers) // outstanding chunks, keeps every worker busy
+                .skipLimit(skipLimit)
+                .skip(FlatFileParseException.class)
+                .listener((SkipListener<Object, Object>) deadLetterWriter)
+                .listener((StepExecutionListener) deadLetterWriter)
+                .listener((StepExecutionListener) stepMetricsListener)
+                .listener(jobProgressTracker)
+                .build();
+    }
+
+    // Worker
+    /**
+     * Each request is processed and written in one transaction, the reply carries the counts
+     * back to the manager's StepExecution.
+     */
+    @Bean
+    public IntegrationFlow chunkWorkerFlow() {
+        ChunkProcessorChunkHandler<Transaction> chunkHandler = new ChunkProcessorChunkHandler<>();
+        chunkHandler.setChunkProcessor(new SimpleChunkProcessor<>(processor, writer));
+        return IntegrationFlow.from(chunkRequests())
+                .handle(chunkHandler, "handleChunk", endpoint -> endpoint.transactional(transactionManager))
+                .channel(chunkReplies())
+                .get();
+    }
+}
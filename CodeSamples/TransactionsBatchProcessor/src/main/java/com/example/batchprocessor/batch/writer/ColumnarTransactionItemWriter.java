@@ -0,0 +1,314 @@
+package com.example.batchprocessor.batch.writer;
+
+import com.example.batchprocessor.model.FailedTransaction;
+import com.example.batchprocessor.model.SuccessfulTransaction;
+import com.example.batchprocessor.model.Transaction;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.ExampleParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.LocalOutputFile;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamWriter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes classified transactions to rolling Parquet files instead of the database, one file set for
+ * successful and one for failed transactions. type and account_number are dictionary encoded.
+ *
+ * A Parquet file cannot be appended to, so rows are first staged in a plain binary file whose length
+ * is saved in the ExecutionContext at every commit (like FlatFileItemWriter does). When the staged
+ * rows reach batch.writer.columnar.rows-per-file, and at the end of the step, they are converted to
+ * the next Parquet file and the staging file is removed. A restart truncates the staging file to the
+ * committed length. Only if the job dies between finishing a file and committing the chunk can the
+ * file hold rows that the restart writes again.
+ *
+ * Every chunk transaction calls write once and update before it commits, also when a failed chunk is
+ * retried or scanned item by item. Rows still staged after the last update when write is called again
+ * belong to a rolled back chunk and are truncated away first.
+ */
+public class ColumnarTransactionItemWriter implements ItemStreamWriter<Transaction> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarTransactionItemWriter.class);
+
+    // prefixes of the ExecutionContext keys of the two file sets
+    private static final String SUCCESSFUL_KEY = "columnarTransactionItemWriter.successful.";
+    private static final String FAILED_KEY = "columnarTransactionItemWriter.failed.";
+
+    private static final MessageType SUCCESSFUL_SCHEMA = MessageTypeParser.parseMessageType("""
+            message successful_transaction {
+              optional int64 transaction_id;
+              optional binary account_number (STRING);
+              optional double amount;
+              optional binary type (STRING);
+              optional int64 timestamp (TIMESTAMP(MILLIS,true));
+            }
+            """);
+    private static final MessageType FAILED_SCHEMA = MessageTypeParser.parseMessageType("""
+            message failed_transaction {
+              optional int64 transaction_id;
+              optional binary account_number (STRING);
+              optional double amount;
+              optional binary type (STRING);
+              optional int64 timestamp (TIMESTAMP(MILLIS,true));
+              optional binary failure_reason (STRING);
+            }
+            """);
+
+    private final RollingFiles successful;
+    private final RollingFiles failed;
+
+    /**
+     * @param baseName part of every file name, must be unique per step and stable across restarts
+     */
+    public ColumnarTransactionItemWriter(Path directory, String baseName, long rowsPerFile, long rowGroupSize,
+                                         CompressionCodecName compression) {
+        this.successful = new RollingFiles(directory, "successful-transaction-" + baseName, SUCCESSFUL_SCHEMA,
+                rowsPerFile, rowGroupSize, compression);
+        this.failed = new RollingFiles(directory, "failed-transaction-" + baseName, FAILED_SCHEMA,
+                rowsPerFile, rowGroupSize, compression);
+    }
+
+    @Override
+    public void write(Chunk<? extends Transaction> transactions) throws Exception {
+        successful.discardUncommitted();
+        failed.discardUncommitted();
+        for (Transaction transaction : transactions) {
+            if (transaction instanceof SuccessfulTransaction) {
+                successful.stage(transaction, null);
+            } else if (transaction instanceof FailedTransaction failedTransaction) {
+                failed.stage(transaction, failedTransaction.getFailureReason());
+            }
+        }
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        successful.open(executionContext, SUCCESSFUL_KEY);
+        failed.open(executionContext, FAILED_KEY);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        successful.update(executionContext, SUCCESSFUL_KEY);
+        failed.update(executionContext, FAILED_KEY);
+    }
+
+    @Override
+    public void close() {
+        successful.close();
+        failed.close();
+    }
+
+    // One rolling set of Parquet files with its staging file
+    private static class RollingFiles {
+        private final Path directory;
+        private final String prefix;
+        private final MessageType schema;
+        private final long rowsPerFile;
+        private final long rowGroupSize;
+        private final CompressionCodecName compression;
+        private final boolean withFailureReason;
+
+        private int index;
+        private long rows;
+        private long committedRows;
+        private long committedLength;
+        private FileChannel stagingChannel;
+        private DataOutputStream staging;
+
+        RollingFiles(Path directory, String prefix, MessageType schema, long rowsPerFile, long rowGroupSize,
+                     CompressionCodecName compression) {
+            this.directory = directory;
+            this.prefix = prefix;
+            this.schema = schema;
+            this.rowsPerFile = rowsPerFile;
+            this.rowGroupSize = rowGroupSize;
+            this.compression = compression;
+            this.withFailureReason = schema.containsField("failure_reason");
+        }
+
+        void open(ExecutionContext context, String key) {
+            index = context.getInt(key + "index", 0);
+            rows = context.getLong(key + "rows", 0L);
+            committedRows = rows;
+            committedLength = context.getLong(key + "length", 0L);
+            try {
+                Files.createDirectories(directory);
+                Path stagingFile = stagingFile(index);
+                if (Files.exists(stagingFile) || committedLength == 0) {
+                    Files.deleteIfExists(parquetFile(index)); // unfinished, it is written again from the staged rows
+                } else {
+                    index++; // the file was finished before the last commit could record it
+                    rows = 0;
+                    committedRows = 0;
+                    committedLength = 0;
+                }
+                openStaging(stagingFile(index), committedLength);
+            } catch (IOException e) {
+                throw new ItemStreamException("Could not open the staging file in " + directory, e);
+            }
+        }
+
+        void stage(Transaction transaction, String failureReason) throws IOException {
+            writeLong(transaction.getTransactionId());
+            writeString(transaction.getAccountNumber());
+            staging.writeBoolean(transaction.getAmount() != null);
+            if (transaction.getAmount() != null) {
+                staging.writeDouble(transaction.getAmount());
+            }
+            writeString(transaction.getType());
+            writeLong(transaction.getTimestamp() == null ? null : transaction.getTimestamp().getTime());
+            if (withFailureReason) {
+                writeString(failureReason);
+            }
+            rows++;
+        }
+
+        void discardUncommitted() throws IOException {
+            if (rows == committedRows) {
+                return;
+            }
+            staging.flush();
+            stagingChannel.truncate(committedLength);
+            stagingChannel.position(committedLength);
+            rows = committedRows;
+        }
+
+        void update(ExecutionContext context, String key) {
+            try {
+                staging.flush();
+                committedLength = stagingChannel.position();
+                committedRows = rows;
+                if (rows >= rowsPerFile) {
+                    roll();
+                }
+            } catch (IOException e) {
+                throw new ItemStreamException("Could not write " + parquetFile(index), e);
+            }
+            context.putInt(key + "index", index);
+            context.putLong(key + "rows", committedRows);
+            context.putLong(key + "length", committedLength);
+        }
+
+        // Converts the committed part of the staging file, also when the step failed
+        void close() {
+            if (staging == null) {
+                return;
+            }
+            try {
+                staging.flush();
+                stagingChannel.truncate(committedLength);
+                staging.close();
+                if (committedRows > 0) {
+                    convert(stagingFile(index), committedRows, parquetFile(index));
+                }
+                Files.deleteIfExists(stagingFile(index));
+            } catch (IOException e) {
+                throw new ItemStreamException("Could not write " + parquetFile(index), e);
+            } finally {
+                staging = null;
+            }
+        }
+
+        private void roll() throws IOException {
+            staging.close();
+            convert(stagingFile(index), committedRows, parquetFile(index));
+            Files.delete(stagingFile(index));
+            index++;
+            rows = 0;
+            committedRows = 0;
+            committedLength = 0;
+            openStaging(stagingFile(index), 0);
+        }
+
+        private void openStaging(Path file, long length) throws IOException {
+            stagingChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            stagingChannel.truncate(length); // drops rows staged after the last commit
+            stagingChannel.position(length);
+            staging = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(stagingChannel), 64 * 1024));
+        }
+
+        private void convert(Path stagingFile, long rowCount, Path parquetFile) throws IOException {
+            SimpleGroupFactory groups = new SimpleGroupFactory(schema);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(stagingFile), 64 * 1024));
+                 ParquetWriter<Group> writer = ExampleParquetWriter.builder(new LocalOutputFile(parquetFile))
+                         .withType(schema)
+                         .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
+                         .withCompressionCodec(compression)
+                         .withRowGroupSize(rowGroupSize)
+                         .withDictionaryEncoding(false)
+                         .withDictionaryEncoding("type", true)
+                         .withDictionaryEncoding("account_number", true)
+                         .build()) {
+                for (long row = 0; row < rowCount; row++) {
+                    Group group = groups.newGroup();
+                    readLong(in, group, "transaction_id");
+                    readString(in, group, "account_number");
+                    if (in.readBoolean()) {
+                        group.append("amount", in.readDouble());
+                    }
+                    readString(in, group, "type");
+                    readLong(in, group, "timestamp");
+                    if (withFailureReason) {
+                        readString(in, group, "failure_reason");
+                    }
+                    writer.write(group);
+                }
+            }
+            logger.info("Wrote {} rows to {}", rowCount, parquetFile);
+        }
+
+        private Path stagingFile(int index) {
+            return directory.resolve(prefix + "-" + String.format("%05d", index) + ".staging");
+        }
+
+        private Path parquetFile(int index) {
+            return directory.resolve(prefix + "-" + String.format("%05d", index) + ".parquet");
+        }
+
+        private void writeLong(Long value) throws IOException {
+            staging.writeBoolean(value != null);
+            if (value != null) {
+                staging.writeLong(value);
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            staging.writeBoolean(value != null);
+            if (value != null) {
+                staging.writeUTF(value);
+            }
+        }
+
+        private static void readLong(DataInputStream in, Group group, String field) throws IOException {
+            if (in.readBoolean()) {
+                group.append(field, in.readLong());
+            }
+        }
+
+        private static void readString(DataInputStream in, Group group, String field) throws IOException {
+            if (in.readBoolean()) {
+                group.append(field, in.readUTF());
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.batchprocessor.batch.writer;
+
+import com.example.batchprocessor.model.Transaction;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.SkipListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.file.FlatFileParseException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Appends every skipped row to a side file as {@code <stage>\t<line number>\t<reason>\t<row>}, so a run
+ * does not fail on a single corrupt line and the rejected lines can be fixed and replayed.
+ * Rows skipped while reading are written as they appeared in the input, rows skipped while processing
+ * or writing in the same column order and timestamp format, so both can be replayed by the reader.
+ * The file is opened on the first skip, flushed at the end of every step and closed at the end of the
+ * job, as partitions and workers share it.
+ */
+public class DeadLetterWriter implements SkipListener<Object, Object>, StepExecutionListener, JobExecutionListener {
+
+    // What both readers accept, in the time zone they parse in
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private final Path path;
+    private BufferedWriter out;
+
+    public DeadLetterWriter(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public void onSkipInRead(Throwable t) {
+        if (t instanceof FlatFileParseException parseException) {
+            append("read", parseException.getLineNumber(), reason(t), parseException.getInput());
+        } else {
+            append("read", 0, reason(t), "");
+        }
+    }
+
+    @Override
+    public void onSkipInProcess(Object item, Throwable t) {
+        append("process", 0, reason(t), format(item));
+    }
+
+    @Override
+    public void onSkipInWrite(Object item, Throwable t) {
+        append("write", 0, reason(t), format(item));
+    }
+
+    @Override
+    public synchronized ExitStatus afterStep(StepExecution stepExecution) {
+        if (out != null) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not flush " + path, e);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized void afterJob(JobExecution jobExecution) {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not close " + path, e);
+            } finally {
+                out = null;
+            }
+        }
+    }
+
+    private synchronized void append(String stage, int lineNumber, String reason, String row) {
+        try {
+            if (out == null) {
+                out = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            out.write(stage + '\t' + lineNumber + '\t' + reason + '\t' + row);
+            out.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write to " + path, e);
+        }
+    }
+
+    private static String reason(Throwable t) {
+        Throwable cause = t instanceof FlatFileParseException && t.getCause() != null ? t.getCause() : t;
+        String message = cause.getMessage() == null ? cause.getClass().getSimpleName() : cause.getMessage();
+        return message.replace('\t', ' ').replace('\n', ' ');
+    }
+
+    private static String format(Object item) {
+        if (item instanceof Future<?> future && future.isDone()) {
+            try {
+                item = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // the failure is the reason, the input is not available any more
+            }
+        }
+        if (item instanceof Transaction transaction) {
+            return field(transaction.getTransactionId()) + "," + field(transaction.getAccountNumber()) + ","
+                    + (transaction.getAmount() == null ? "" : BigDecimal.valueOf(transaction.getAmount()).toPlainString()) + ","
+                    + field(transaction.getType()) + "," + timestamp(transaction.getTimestamp());
+        }
+        return String.valueOf(item);
+    }
+
+    private static String field(Object value) {
+        return value == null ? "" : value.toString();
+    }
+
+    private static String timestamp(Date timestamp) {
+        return timestamp == null ? "" : LocalDateTime.ofInstant(timestamp.toInstant(), ZoneId.systemDefault()).format(TIMESTAMP_FORMAT);
+    }
+}
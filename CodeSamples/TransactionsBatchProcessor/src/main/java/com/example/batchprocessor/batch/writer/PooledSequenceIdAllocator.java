@@ -0,0 +1,36 @@
+package com.example.batchprocessor.batch.writer;
+
+import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
+
+/**
+ * Hands out ids from blocks reserved with a single sequence call, the same way Hibernate's
+ * pooled optimizer does: a sequence value {@code hi} reserves the ids {@code (hi - allocationSize, hi]}.
+ * The allocation size must match the sequence's INCREMENT BY (50 for Hibernate's default sequences),
+ * so ids handed out here never collide with ids generated through JPA.
+ */
+public class PooledSequenceIdAllocator {
+
+    private final DataFieldMaxValueIncrementer incrementer;
+    private final int allocationSize;
+
+    private long next;
+    private long limit;
+
+    public PooledSequenceIdAllocator(DataFieldMaxValueIncrementer incrementer, int allocationSize) {
+        this.incrementer = incrementer;
+        this.allocationSize = allocationSize;
+    }
+
+    public synchronized long nextId() {
+        if (next >= limit) {
+            long hi = incrementer.nextLongValue();
+            if (hi - allocationSize + 1 < 1) {
+                // first value of a fresh sequence, the block starts with the next one
+                hi = incrementer.nextLongValue();
+            }
+            next = hi - allocationSize + 1;
+            limit = hi + 1;
+        }
+        return next++;
+    }
+}
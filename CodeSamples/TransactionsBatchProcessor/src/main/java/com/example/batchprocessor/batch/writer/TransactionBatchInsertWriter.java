@@ -0,0 +1,114 @@
+package com.example.batchprocessor.batch.writer;
+
+import com.example.batchprocessor.model.FailedTransaction;
+import com.example.batchprocessor.model.SuccessfulTransaction;
+import com.example.batchprocessor.model.Transaction;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.database.support.DataFieldMaxValueIncrementerFactory;
+import org.springframework.batch.item.database.support.DefaultDataFieldMaxValueIncrementerFactory;
+import org.springframework.batch.support.DatabaseType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Inserts a chunk of one transaction class into its table with a single JDBC batch,
+ * instead of one repository.save (merge + sequence call) per row.
+ * Ids come from the Hibernate sequence of the table through a {@link PooledSequenceIdAllocator}.
+ * Rows are merged on transaction_id, so a re-delivered transaction updates its earlier row.
+ */
+public class TransactionBatchInsertWriter<T extends Transaction> implements ItemWriter<T> {
+
+    // Keyed on transaction_id, a null transaction_id never matches and is always inserted.
+    // The casts tell the database the column types of the VALUES row.
+    private static final String UPSERT_SUCCESSFUL_TRANSACTION = """
+            MERGE INTO successful_transaction t
+            USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS VARCHAR(255)), CAST(? AS DOUBLE PRECISION),
+                           CAST(? AS VARCHAR(255)), CAST(? AS TIMESTAMP)))
+                AS s(id, transaction_id, account_number, amount, type, timestamp)
+            ON t.transaction_id = s.transaction_id
+            WHEN MATCHED THEN UPDATE SET
+                account_number = s.account_number, amount = s.amount, type = s.type, timestamp = s.timestamp
+            WHEN NOT MATCHED THEN INSERT (id, transaction_id, account_number, amount, type, timestamp)
+                VALUES (s.id, s.transaction_id, s.account_number, s.amount, s.type, s.timestamp)
+            """;
+    private static final String UPSERT_FAILED_TRANSACTION = """
+            MERGE INTO failed_transaction t
+            USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS VARCHAR(255)), CAST(? AS DOUBLE PRECISION),
+                           CAST(? AS VARCHAR(255)), CAST(? AS TIMESTAMP), CAST(? AS VARCHAR(255))))
+                AS s(id, transaction_id, account_number, amount, type, timestamp, failure_reason)
+            ON t.transaction_id = s.transaction_id
+            WHEN MATCHED THEN UPDATE SET
+                account_number = s.account_number, amount = s.amount, type = s.type, timestamp = s.timestamp,
+                failure_reason = s.failure_reason
+            WHEN NOT MATCHED THEN INSERT (id, transaction_id, account_number, amount, type, timestamp, failure_reason)
+                VALUES (s.id, s.transaction_id, s.account_number, s.amount, s.type, s.timestamp, s.failure_reason)
+            """;
+
+    // Hibernate's default allocationSize, i.e. the INCREMENT BY of the generated sequences
+    private static final int ALLOCATION_SIZE = 50;
+
+    /**
+     * Sets the columns that follow the common ones (id, transaction_id, account_number, amount, type, timestamp).
+     */
+    @FunctionalInterface
+    public interface ExtraColumns<T> {
+        void set(PreparedStatement ps, T transaction) throws SQLException;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String sql;
+    private final PooledSequenceIdAllocator ids;
+    private final ExtraColumns<T> extraColumns;
+
+    public TransactionBatchInsertWriter(DataSource dataSource, String sql, String sequenceName, ExtraColumns<T> extraColumns) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.sql = sql;
+        this.ids = new PooledSequenceIdAllocator(incrementerFactory(dataSource).getIncrementer(databaseType(dataSource), sequenceName),
+                ALLOCATION_SIZE);
+        this.extraColumns = extraColumns;
+    }
+
+    public static TransactionBatchInsertWriter<SuccessfulTransaction> successfulTransactions(DataSource dataSource) {
+        return new TransactionBatchInsertWriter<>(dataSource, UPSERT_SUCCESSFUL_TRANSACTION, "successful_transaction_seq",
+                (ps, transaction) -> { });
+    }
+
+    public static TransactionBatchInsertWriter<FailedTransaction> failedTransactions(DataSource dataSource) {
+        return new TransactionBatchInsertWriter<>(dataSource, UPSERT_FAILED_TRANSACTION, "failed_transaction_seq",
+                (ps, transaction) -> ps.setString(7, transaction.getFailureReason()));
+    }
+
+    @Override
+    public void write(Chunk<? extends T> transactions) throws Exception {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(sql, transactions.getItems(), transactions.size(), (ps, transaction) -> {
+            ps.setLong(1, ids.nextId());
+            ps.setObject(2, transaction.getTransactionId());
+            ps.setString(3, transaction.getAccountNumber());
+            ps.setObject(4, transaction.getAmount());
+            ps.setString(5, transaction.getType());
+            ps.setTimestamp(6, transaction.getTimestamp() == null ? null : new Timestamp(transaction.getTimestamp().getTime()));
+            extraColumns.set(ps, transaction);
+        });
+    }
+
+    private static DataFieldMaxValueIncrementerFactory incrementerFactory(DataSource dataSource) {
+        return new DefaultDataFieldMaxValueIncrementerFactory(dataSource);
+    }
+
+    private static String databaseType(DataSource dataSource) {
+        try {
+            return DatabaseType.fromMetaData(dataSource).name();
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Could not determine the database type", e);
+        }
+    }
+}
@@ -10,6 +10,17 @@ import org.springframework.batch.item.ItemWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Saves each transaction, or overwrites the row stored for its transactionId before. The stored rows of a
+ * chunk are loaded with one query per table, so a re-delivered row costs no extra round trip.
+ */
 @Component
 public class TransactionItemWriter implements ItemWriter<Transaction> {
     @Autowired
@@ -19,12 +30,52 @@ public class TransactionItemWriter implements ItemWriter<Transaction> {
 
     @Override
     public void write(Chunk<? extends Transaction> transactions) throws Exception {
+        List<Long> successfulIds = new ArrayList<>();
+        List<Long> failedIds = new ArrayList<>();
+        for (Transaction transaction : transactions) {
+            if (transaction.getTransactionId() != null) {
+                (transaction instanceof FailedTransaction ? failedIds : successfulIds).add(transaction.getTransactionId());
+            }
+        }
+        Map<Long, SuccessfulTransaction> storedSuccessful = successfulIds.isEmpty() ? new HashMap<>()
+                : byTransactionId(successfulTransactionRepository.findByTransactionIdIn(successfulIds));
+        Map<Long, FailedTransaction> storedFailed = failedIds.isEmpty() ? new HashMap<>()
+                : byTransactionId(failedTransactionRepository.findByTransactionIdIn(failedIds));
+
         for (Transaction transaction : transactions) {
-            if (transaction instanceof SuccessfulTransaction) {
-                successfulTransactionRepository.save((SuccessfulTransaction) transaction);
-            } else if (transaction instanceof FailedTransaction) {
-                failedTransactionRepository.save((FailedTransaction) transaction);
+            if (transaction instanceof SuccessfulTransaction successful) {
+                SuccessfulTransaction existing = stored(storedSuccessful, successful);
+                if (existing != null) {
+                    copy(successful, existing); // managed, flushed on commit
+                } else {
+                    successfulTransactionRepository.save(successful);
+                }
+            } else if (transaction instanceof FailedTransaction failed) {
+                FailedTransaction existing = stored(storedFailed, failed);
+                if (existing != null) {
+                    copy(failed, existing);
+                    existing.setFailureReason(failed.getFailureReason());
+                } else {
+                    failedTransactionRepository.save(failed);
+                }
             }
         }
     }
+
+    private static <T extends Transaction> Map<Long, T> byTransactionId(List<T> stored) {
+        return stored.stream().collect(Collectors.toMap(Transaction::getTransactionId, Function.identity(), (a, b) -> a, HashMap::new));
+    }
+
+    // The stored row, or null after remembering this one, so a transactionId repeated in the chunk updates it
+    private static <T extends Transaction> T stored(Map<Long, T> stored, T transaction) {
+        return transaction.getTransactionId() == null ? null : stored.putIfAbsent(transaction.getTransactionId(), transaction);
+    }
+
+    // A re-delivered transaction overwrites the row stored for it before
+    private static void copy(Transaction source, Transaction target) {
+        target.setAccountNumber(source.getAccountNumber());
+        target.setAmount(source.getAmount());
+        target.setType(source.getType());
+        target.setTimestamp(source.getTimestamp());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.example.batchprocessor.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.batch.BatchDataSource;
+import org.springframework.boot.autoconfigure.batch.BatchDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.batch.BatchProperties;
+import org.springframework.boot.autoconfigure.batch.BatchTransactionManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.sql.init.DatabaseInitializationMode;
+import org.springframework.boot.sql.init.DatabaseInitializationSettings;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+
+/**
+ * batch.metadata.mode=memory: the job repository works on a private in-memory H2 database, so the
+ * step execution and context updates at every commit no longer go to the main database. The metadata
+ * is lost with the JVM, which rules out restarts and incremental runs.
+ *
+ * Declaring the batch data source turns off Boot's default DataSource and transaction manager, so the
+ * main ones are declared here as well, from the usual spring.datasource properties.
+ */
+@Configuration
+@ConditionalOnProperty(name = "batch.metadata.mode", havingValue = "memory")
+public class InMemoryMetadataConfig {
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().build();
+    }
+
+    @Bean
+    @Primary
+    public PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+        return new JpaTransactionManager(entityManagerFactory);
+    }
+
+    // The BATCH_* tables are created by Boot, spring.batch.jdbc.initialize-schema defaults to embedded
+    @Bean
+    @BatchDataSource
+    public DataSource batchDataSource() {
+        return new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+    }
+
+    @Bean
+    @BatchTransactionManager
+    public PlatformTransactionManager batchTransactionManager() {
+        return new DataSourceTransactionManager(batchDataSource());
+    }
+
+    /**
+     * With batch.metadata.flush=true, copies every finished job execution into the BATCH_* tables of the
+     * main database (created there if missing).
+     */
+    @Bean
+    @ConditionalOnProperty(name = "batch.metadata.flush", havingValue = "true")
+    public JobMetadataFlusher jobMetadataFlusher(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                                 BatchProperties batchProperties) {
+        DatabaseInitializationSettings settings = BatchDataSourceScriptDatabaseInitializer.getSettings(dataSource,
+                batchProperties.getJdbc());
+        settings.setMode(DatabaseInitializationMode.ALWAYS);
+        settings.setContinueOnError(true); // the tables may exist already
+        new BatchDataSourceScriptDatabaseInitializer(dataSource, settings).initializeDatabase();
+
+        JobRepositoryFactoryBean factory = new JobRepositoryFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setTransactionManager(transactionManager);
+        try {
+            factory.afterPropertiesSet();
+            JobRepository target = factory.getObject();
+            return new JobMetadataFlusher(target);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not create the job repository on the main database", e);
+        }
+    }
+}
@@ -4,8 +4,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.ExecutionContext;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+
 @Component
 public class JobCompletionListener implements JobExecutionListener {
 
@@ -19,5 +24,33 @@ public class JobCompletionListener implements JobExecutionListener {
     @Override
     public void afterJob(JobExecution jobExecution) {
         logger.info("Job completed with status: {}", jobExecution.getStatus());
+        for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+            logger.info("Step {}: read={}, written={}, filtered={}, skipped(read/process/write)={}/{}/{}, rollbacks={}",
+                    stepExecution.getStepName(), stepExecution.getReadCount(), stepExecution.getWriteCount(),
+                    stepExecution.getFilterCount(), stepExecution.getReadSkipCount(), stepExecution.getProcessSkipCount(),
+                    stepExecution.getWriteSkipCount(), stepExecution.getRollbackCount());
+            logThroughput(stepExecution);
+        }
+    }
+
+    private void logThroughput(StepExecution stepExecution) {
+        ExecutionContext context = stepExecution.getExecutionContext();
+        long chunks = context.getLong(StepMetricsListener.CHUNKS, 0L);
+        if (chunks == 0) {
+            return; // not a chunk-oriented step, e.g. the partition manager
+        }
+        LocalDateTime endTime = stepExecution.getEndTime() != null ? stepExecution.getEndTime() : LocalDateTime.now();
+        double seconds = Math.max(Duration.between(stepExecution.getStartTime(), endTime).toNanos() / 1e9, 1e-9);
+        long processed = stepExecution.getReadCount() - stepExecution.getProcessSkipCount();
+
+        logger.info("Step {}: {} read/s, {} processed/s, {} written/s, {} chunks, chunk latency avg={} ms max={} ms, {} KB allocated per chunk",
+                stepExecution.getStepName(),
+                Math.round(stepExecution.getReadCount() / seconds),
+                Math.round(processed / seconds),
+                Math.round(stepExecution.getWriteCount() / seconds),
+                chunks,
+                context.getLong(StepMetricsListener.CHUNK_NANOS, 0L) / chunks / 1_000_000,
+                context.getLong(StepMetricsListener.MAX_CHUNK_NANOS, 0L) / 1_000_000,
+                context.getLong(StepMetricsListener.ALLOCATED_BYTES, 0L) / chunks / 1024);
     }
 }
\ No newline at end of file
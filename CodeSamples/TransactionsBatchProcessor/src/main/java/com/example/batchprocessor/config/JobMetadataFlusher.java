@@ -0,0 +1,91 @@
+package com.example.batchprocessor.config;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+/**
+ * Copies a finished job execution, with its parameters, step executions and contexts, from the in-memory
+ * job repository to the one on the main database. The copy goes through the target JobRepository, so the
+ * rows get ids from the target's own sequences. It runs in the background after the job, once the job
+ * has reached its final status, and shutdown waits for it.
+ *
+ * The in-memory repository starts at the same run.id in every JVM, so the copy is a job instance of its
+ * own, identified by the source execution's id and start time on top of its parameters.
+ */
+public class JobMetadataFlusher implements JobExecutionListener {
+
+    public static final String SOURCE_EXECUTION_ID = "source.execution.id";
+    public static final String SOURCE_START_TIME = "source.start.time";
+
+    private static final Logger logger = LoggerFactory.getLogger(JobMetadataFlusher.class);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30_000;
+
+    private final JobRepository target;
+    private final SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("metadata-flush-");
+
+    public JobMetadataFlusher(JobRepository target) {
+        this.target = target;
+        this.executor.setVirtualThreads(true);
+        this.executor.setTaskTerminationTimeout(SHUTDOWN_TIMEOUT_MILLIS);
+    }
+
+    @PreDestroy
+    void close() {
+        executor.close(); // waits for the flushes still running
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        executor.execute(() -> flush(jobExecution));
+    }
+
+    private void flush(JobExecution source) {
+        try {
+            JobParameters parameters = new JobParametersBuilder(source.getJobParameters())
+                    .addLong(SOURCE_EXECUTION_ID, source.getId())
+                    .addLocalDateTime(SOURCE_START_TIME, source.getStartTime())
+                    .toJobParameters();
+            JobExecution copy = target.createJobExecution(source.getJobInstance().getJobName(), parameters);
+            for (StepExecution sourceStep : source.getStepExecutions()) {
+                target.add(copy(sourceStep, copy));
+            }
+            copy.setStartTime(source.getStartTime());
+            copy.setEndTime(source.getEndTime());
+            copy.setStatus(source.getStatus());
+            copy.setExitStatus(source.getExitStatus());
+            copy.setExecutionContext(new ExecutionContext(source.getExecutionContext()));
+            target.update(copy);
+            target.updateExecutionContext(copy);
+            logger.info("Job execution {} flushed to the main database as {}", source.getId(), copy.getId());
+        } catch (Exception e) {
+            logger.warn("Could not flush job execution {} to the main database", source.getId(), e);
+        }
+    }
+
+    private static StepExecution copy(StepExecution source, JobExecution jobExecution) {
+        StepExecution copy = new StepExecution(source.getStepName(), jobExecution);
+        copy.setStartTime(source.getStartTime());
+        copy.setEndTime(source.getEndTime());
+        copy.setStatus(source.getStatus());
+        copy.setExitStatus(source.getExitStatus());
+        copy.setReadCount(source.getReadCount());
+        copy.setWriteCount(source.getWriteCount());
+        copy.setFilterCount(source.getFilterCount());
+        copy.setCommitCount(source.getCommitCount());
+        copy.setRollbackCount(source.getRollbackCount());
+        copy.setReadSkipCount(source.getReadSkipCount());
+        copy.setProcessSkipCount(source.getProcessSkipCount());
+        copy.setWriteSkipCount(source.getWriteSkipCount());
+        copy.setExecutionContext(new ExecutionContext(source.getExecutionContext()));
+        return copy;
+    }
+}
@@ -0,0 +1,303 @@
+package com.example.batchprocessor.config;
+
+import com.example.batchprocessor.batch.incremental.HighWaterMarkListener;
+import com.example.batchprocessor.batch.partitioner.ByteRangePartitioner;
+import com.example.batchprocessor.batch.partitioner.LineRangePartitioner;
+import com.example.batchprocessor.batch.reader.CSVReader;
+import com.example.batchprocessor.batch.reader.MappedTransactionItemReader;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Live progress of the steps of the current job, served by JobProgressController.
+ *
+ * The listener only registers each StepExecution when the step starts. A sampler thread then reads the
+ * counts Spring Batch already keeps (volatile fields of the StepExecution, and the reader offset in its
+ * ExecutionContext, a concurrent map updated at every commit), so nothing is added to the chunk loop.
+ *
+ * The fraction done comes from the bytes consumed by the mapped reader, from the line range of the step,
+ * or from the number of rows estimated from the size of the input file. Compressed input has no estimate.
+ */
+@Component
+public class JobProgressTracker implements StepExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobProgressTracker.class);
+
+    private static final int SAMPLE_BYTES = 64 * 1024;
+    private static final double SMOOTHING = 0.3;
+
+    @Autowired
+    private ObjectProvider<CSVReader> csvReaderProvider; // declared by TransactionJob, which depends on this listener
+
+    @Value("${batch.reader.mode:flatfile}")
+    private String readerMode;
+
+    @Value("${batch.progress.sample-interval-ms:1000}")
+    private long sampleIntervalMillis;
+
+    private final Map<Long, TrackedStep> steps = new ConcurrentHashMap<>();
+    private final List<Consumer<JobProgress>> subscribers = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "job-progress-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile JobProgress latest = new JobProgress(null, List.of());
+
+    public record StepProgress(String stepName, BatchStatus status, long readCount, long writeCount,
+                               long filterCount, long skipCount, double itemsPerSecond, Double percentDone,
+                               LocalDateTime estimatedCompletion) {
+    }
+
+    public record JobProgress(Long jobExecutionId, List<StepProgress> steps) {
+    }
+
+    // The sampling state is only touched by the sampler thread
+    private static class TrackedStep {
+        final StepExecution stepExecution;
+        final Extent extent;
+
+        long lastSampleNanos;
+        long lastRead;
+        double lastFraction;
+        double itemsPerSecond;
+        double fractionPerSecond;
+        boolean published;
+
+        TrackedStep(StepExecution stepExecution, Extent extent) {
+            this.stepExecution = stepExecution;
+            this.extent = extent;
+            this.lastSampleNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * What a step has to get through: a byte range of the input (mapped reader) or a number of rows.
+     */
+    private record Extent(long startOffset, long endOffset, long rows) {
+
+        static final Extent UNKNOWN = new Extent(0, 0, 0);
+
+        static Extent bytes(long startOffset, long endOffset) {
+            return new Extent(startOffset, endOffset, 0);
+        }
+
+        static Extent rows(long rows) {
+            return new Extent(0, 0, rows);
+        }
+
+        Double fraction(StepExecution stepExecution) {
+            if (endOffset > startOffset) {
+                ExecutionContext context = stepExecution.getExecutionContext();
+                long offset = context.containsKey(MappedTransactionItemReader.OFFSET_KEY)
+                        ? context.getLong(MappedTransactionItemReader.OFFSET_KEY) : startOffset;
+                return Math.clamp((double) (offset - startOffset) / (endOffset - startOffset), 0.0, 1.0);
+            }
+            if (rows > 0) {
+                long consumed = stepExecution.getReadCount() + stepExecution.getReadSkipCount();
+                return Math.min((double) consumed / rows, 1.0);
+            }
+            return null;
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        sampler.scheduleAtFixedRate(this::sample, sampleIntervalMillis, sampleIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        sampler.shutdownNow();
+    }
+
+    public JobProgress latest() {
+        return latest;
+    }
+
+    public void subscribe(Consumer<JobProgress> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public void unsubscribe(Consumer<JobProgress> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        Long jobExecutionId = stepExecution.getJobExecutionId();
+        // finished steps stay in the samples with their final counts until the next job starts
+        steps.values().removeIf(step -> !step.stepExecution.getJobExecutionId().equals(jobExecutionId));
+        steps.put(stepExecution.getId(), new TrackedStep(stepExecution, extent(stepExecution)));
+    }
+
+
+    private void sample() {
+        try {
+            if (steps.isEmpty()) {
+                return;
+            }
+            long now = System.nanoTime();
+            boolean changed = false;
+            List<StepProgress> progress = new ArrayList<>(steps.size());
+            for (TrackedStep step : steps.values()) {
+                boolean running = step.stepExecution.getStatus().isRunning();
+                changed |= running || !step.published;
+                step.published = !running;
+                progress.add(sample(step, now, running));
+            }
+            if (!changed) {
+                return;
+            }
+            progress.sort(Comparator.comparing(StepProgress::stepName));
+            JobProgress jobProgress = new JobProgress(steps.values().iterator().next().stepExecution.getJobExecutionId(),
+                    List.copyOf(progress));
+            latest = jobProgress;
+            for (Consumer<JobProgress> subscriber : subscribers) {
+                subscriber.accept(jobProgress);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not sample job progress", e); // keeps the schedule alive
+        }
+    }
+
+    private static StepProgress sample(TrackedStep step, long now, boolean running) {
+        StepExecution stepExecution = step.stepExecution;
+        long read = stepExecution.getReadCount();
+        Double fraction = step.extent.fraction(stepExecution);
+
+        double seconds = (now - step.lastSampleNanos) / 1e9;
+        if (running && seconds > 0) {
+            step.itemsPerSecond = smooth(step.itemsPerSecond, (read - step.lastRead) / seconds);
+            if (fraction != null) {
+                step.fractionPerSecond = smooth(step.fractionPerSecond, (fraction - step.lastFraction) / seconds);
+            }
+        } else if (!running) {
+            step.itemsPerSecond = 0;
+        }
+        step.lastSampleNanos = now;
+        step.lastRead = read;
+        step.lastFraction = fraction == null ? 0 : fraction;
+
+        LocalDateTime estimatedCompletion = null;
+        if (!running) {
+            estimatedCompletion = stepExecution.getEndTime();
+        } else if (fraction != null && step.fractionPerSecond > 0) {
+            long remainingMillis = Math.round((1 - fraction) / step.fractionPerSecond * 1000);
+            estimatedCompletion = LocalDateTime.now().plusNanos(remainingMillis * 1_000_000);
+        }
+        long skipped = stepExecution.getReadSkipCount() + stepExecution.getProcessSkipCount()
+                + stepExecution.getWriteSkipCount();
+        Double percentDone = fraction == null ? null : Math.round(fraction * 1000) / 10.0;
+        return new StepProgress(stepExecution.getStepName(), stepExecution.getStatus(), read,
+                stepExecution.getWriteCount(), stepExecution.getFilterCount(), skipped,
+                Math.round(step.itemsPerSecond * 10) / 10.0, percentDone, estimatedCompletion);
+    }
+
+    // Exponentially weighted, so one slow commit does not swing the estimate
+    private static double smooth(double previous, double current) {
+        return previous == 0 ? current : previous + SMOOTHING * (current - previous);
+    }
+
+    /**
+     * Partition workers carry their range in the step ExecutionContext, an incremental run in the job's.
+     */
+    private Extent extent(StepExecution stepExecution) {
+        CSVReader csvReader = csvReaderProvider.getObject();
+        if (csvReader.hasInputFiles()) {
+            return Extent.UNKNOWN;
+        }
+        ExecutionContext stepContext = stepExecution.getExecutionContext();
+        ExecutionContext jobContext = stepExecution.getJobExecution().getExecutionContext();
+        try {
+            if ("mapped".equals(readerMode)) {
+                long fileSize = Files.size(csvReader.inputPath());
+                if (stepContext.containsKey(ByteRangePartitioner.START_OFFSET)) {
+                    return bytes(stepContext.getLong(ByteRangePartitioner.START_OFFSET),
+                            stepContext.getLong(ByteRangePartitioner.END_OFFSET), fileSize);
+                }
+                if (jobContext.containsKey(HighWaterMarkListener.FROM)) {
+                    return bytes(jobContext.getLong(HighWaterMarkListener.FROM),
+                            jobContext.getLong(HighWaterMarkListener.TO), fileSize);
+                }
+                return Extent.bytes(0, fileSize);
+            }
+            if (stepContext.containsKey(LineRangePartitioner.FROM_LINE)) {
+                return Extent.rows(stepContext.getInt(LineRangePartitioner.TO_LINE)
+                        - stepContext.getInt(LineRangePartitioner.FROM_LINE));
+            }
+            if (jobContext.containsKey(HighWaterMarkListener.FROM)) {
+                return Extent.rows(jobContext.getLong(HighWaterMarkListener.TO) - jobContext.getLong(HighWaterMarkListener.FROM));
+            }
+            return Extent.rows(estimateRows(csvReader.inputPath()));
+        } catch (IOException | ItemStreamException e) {
+            logger.debug("No progress estimate for step {}: {}", stepExecution.getStepName(), e.getMessage());
+            return Extent.UNKNOWN;
+        }
+    }
+
+    private static Extent bytes(long startOffset, long endOffset, long fileSize) {
+        return Extent.bytes(startOffset, endOffset < 0 ? fileSize : Math.min(endOffset, fileSize));
+    }
+
+    /**
+     * The file size divided by the average line length of the first 64 KB, without the header.
+     */
+    private static long estimateRows(Path path) throws IOException {
+        long size = Files.size(path);
+        byte[] sample = new byte[SAMPLE_BYTES];
+        int length;
+        try (InputStream in = Files.newInputStream(path)) {
+            length = in.readNBytes(sample, 0, sample.length);
+        }
+        int lines = 0;
+        int headerLength = -1;
+        int lastNewline = -1;
+        for (int i = 0; i < length; i++) {
+            if (sample[i] == '\n') {
+                if (headerLength < 0) {
+                    headerLength = i + 1;
+                } else {
+                    lines++;
+                }
+                lastNewline = i;
+            }
+        }
+        if (lines == 0) {
+            return headerLength >= 0 && size > headerLength ? 1 : 0;
+        }
+        if (length == size) {
+            return lastNewline == length - 1 ? lines : lines + 1; // the whole file was sampled
+        }
+        double averageLineLength = (double) (lastNewline + 1 - headerLength) / lines;
+        return Math.round((size - headerLength) / averageLineLength);
+    }
+}
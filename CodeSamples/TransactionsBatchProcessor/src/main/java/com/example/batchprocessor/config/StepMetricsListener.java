@@ -0,0 +1,200 @@
+package com.example.batchprocessor.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.SkipListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes per-step metrics to Micrometer (see /actuator/metrics):
+ * batch.items (read, processed and written items, tagged by stage), batch.chunk.commit (chunk latency
+ * up to and including the commit, with a histogram), batch.chunk.allocated (heap bytes allocated by the
+ * step thread per chunk), batch.chunk.rollbacks and batch.items.skipped. The meters of a step are looked
+ * up once, when it starts.
+ *
+ * The allocation figure only covers the thread running the chunk. With batch.async.enabled the processing
+ * runs on other threads and is not included; each partition or remote chunking step counts its own thread.
+ *
+ * The totals of each step are also stored in its ExecutionContext under metrics.* for JobCompletionListener.
+ */
+@Component
+public class StepMetricsListener implements StepExecutionListener, ChunkListener,
+        SkipListener<Object, Object> {
+
+    public static final String CHUNKS = "metrics.chunks";
+    public static final String CHUNK_NANOS = "metrics.chunkNanos";
+    public static final String MAX_CHUNK_NANOS = "metrics.maxChunkNanos";
+    public static final String ALLOCATED_BYTES = "metrics.allocatedBytes";
+
+    private static final com.sun.management.ThreadMXBean threadBean =
+            ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                    && bean.isThreadAllocatedMemorySupported() ? bean : null;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Long, StepStats> stats = new ConcurrentHashMap<>();
+
+    private Counter skippedInRead;
+    private Counter skippedInProcess;
+    private Counter skippedInWrite;
+
+    // One instance per running step execution, only touched by the thread running that step
+    private static class StepStats {
+        final Timer commit;
+        final DistributionSummary allocated;
+        final Counter read;
+        final Counter processed;
+        final Counter written;
+        final Counter rollbacks;
+
+        long chunks;
+        long chunkNanos;
+        long maxChunkNanos;
+        long allocatedBytes;
+
+        long chunkStart;
+        long chunkStartAllocatedBytes;
+
+        long lastRead;
+        long lastProcessed;
+        long lastWritten;
+
+        StepStats(String step, MeterRegistry meterRegistry) {
+            commit = Timer.builder("batch.chunk.commit")
+                    .tag("step", step)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            allocated = threadBean == null ? null : DistributionSummary.builder("batch.chunk.allocated")
+                    .baseUnit("bytes")
+                    .tag("step", step)
+                    .register(meterRegistry);
+            read = items(step, "read", meterRegistry);
+            processed = items(step, "process", meterRegistry);
+            written = items(step, "write", meterRegistry);
+            rollbacks = Counter.builder("batch.chunk.rollbacks")
+                    .tag("step", step)
+                    .register(meterRegistry);
+        }
+
+        private static Counter items(String step, String stage, MeterRegistry meterRegistry) {
+            return Counter.builder("batch.items")
+                    .tag("step", step)
+                    .tag("stage", stage)
+                    .register(meterRegistry);
+        }
+    }
+
+    @PostConstruct
+    void registerSkipCounters() {
+        skippedInRead = skipped("read");
+        skippedInProcess = skipped("process");
+        skippedInWrite = skipped("write");
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        stats.put(stepExecution.getId(), new StepStats(stepExecution.getStepName(), meterRegistry));
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        StepStats stepStats = stats.get(context.getStepContext().getStepExecution().getId());
+        if (stepStats != null) {
+            stepStats.chunkStart = System.nanoTime();
+            stepStats.chunkStartAllocatedBytes = allocatedBytes();
+        }
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        StepExecution stepExecution = context.getStepContext().getStepExecution();
+        StepStats stepStats = stats.get(stepExecution.getId());
+        if (stepStats == null) {
+            return;
+        }
+
+        long elapsed = System.nanoTime() - stepStats.chunkStart;
+        stepStats.commit.record(elapsed, TimeUnit.NANOSECONDS);
+        stepStats.chunks++;
+        stepStats.chunkNanos += elapsed;
+        stepStats.maxChunkNanos = Math.max(stepStats.maxChunkNanos, elapsed);
+
+        if (threadBean != null) {
+            long allocated = allocatedBytes() - stepStats.chunkStartAllocatedBytes;
+            stepStats.allocated.record(allocated);
+            stepStats.allocatedBytes += allocated;
+        }
+
+        long read = stepExecution.getReadCount();
+        long processed = read - stepExecution.getProcessSkipCount();
+        long written = stepExecution.getWriteCount();
+        stepStats.read.increment(read - stepStats.lastRead);
+        stepStats.processed.increment(processed - stepStats.lastProcessed);
+        stepStats.written.increment(written - stepStats.lastWritten);
+        stepStats.lastRead = read;
+        stepStats.lastProcessed = processed;
+        stepStats.lastWritten = written;
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        StepStats stepStats = stats.get(context.getStepContext().getStepExecution().getId());
+        if (stepStats != null) {
+            stepStats.rollbacks.increment();
+        }
+    }
+
+    @Override
+    public void onSkipInRead(Throwable t) {
+        skippedInRead.increment();
+    }
+
+    @Override
+    public void onSkipInProcess(Object item, Throwable t) {
+        skippedInProcess.increment();
+    }
+
+    @Override
+    public void onSkipInWrite(Object item, Throwable t) {
+        skippedInWrite.increment();
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        StepStats stepStats = stats.remove(stepExecution.getId());
+        if (stepStats != null) {
+            ExecutionContext context = stepExecution.getExecutionContext();
+            context.putLong(CHUNKS, stepStats.chunks);
+            context.putLong(CHUNK_NANOS, stepStats.chunkNanos);
+            context.putLong(MAX_CHUNK_NANOS, stepStats.maxChunkNanos);
+            context.putLong(ALLOCATED_BYTES, stepStats.allocatedBytes);
+        }
+        return null;
+    }
+
+    private Counter skipped(String stage) {
+        return Counter.builder("batch.items.skipped")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    private static long allocatedBytes() {
+        return threadBean == null ? 0 : threadBean.getCurrentThreadAllocatedBytes();
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.batchprocessor.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Setter @Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "ACCOUNT_SUMMARY")
+public class AccountSummary {
+    @Id
+    private String accountNumber;
+
+    private double totalCredit;
+    private double totalDebit;
+    private long creditCount;
+    private long debitCount;
+}
@@ -18,4 +18,9 @@ public class FailedTransaction extends Transaction {
     private Long id;
 
     private String failureReason;
+
+    public FailedTransaction(Transaction source, String failureReason) {
+        super(source);
+        this.failureReason = failureReason;
+    }
 }
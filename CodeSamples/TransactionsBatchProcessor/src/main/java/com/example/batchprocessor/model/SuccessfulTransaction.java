@@ -4,10 +4,19 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.NoArgsConstructor;
 
+@NoArgsConstructor
 @Entity
+@Table(indexes = @Index(name = "successful_transaction_dedup_idx", columnList = "account_number, timestamp")) // duplicate checks
 public class SuccessfulTransaction extends Transaction {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
+
+    public SuccessfulTransaction(Transaction source) {
+        super(source);
+    }
 }
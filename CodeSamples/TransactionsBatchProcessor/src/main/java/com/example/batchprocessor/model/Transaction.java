@@ -7,19 +7,33 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.io.Serializable;
 import java.util.Date;
 
 @AllArgsConstructor
 @NoArgsConstructor
 @Setter @Getter
 @MappedSuperclass
-public class Transaction {
+public class Transaction implements Serializable {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
 
+    // the id from the input file, re-delivered rows are matched on it
+    @Column(unique = true)
+    private Long transactionId;
+
     private String accountNumber;
     private Double amount;
     private String type;
     private Date timestamp;
+
+    // Copies the transaction data, not the id
+    protected Transaction(Transaction source) {
+        this.transactionId = source.transactionId;
+        this.accountNumber = source.accountNumber;
+        this.amount = source.amount;
+        this.type = source.type;
+        this.timestamp = source.timestamp;
+    }
 }
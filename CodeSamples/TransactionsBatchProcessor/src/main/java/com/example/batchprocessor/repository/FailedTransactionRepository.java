@@ -3,5 +3,9 @@ package com.example.batchprocessor.repository;
 import com.example.batchprocessor.model.FailedTransaction;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface FailedTransactionRepository extends JpaRepository<FailedTransaction, Long> {
+    List<FailedTransaction> findByTransactionIdIn(Collection<Long> transactionIds);
 }
@@ -3,5 +3,9 @@ package com.example.batchprocessor.repository;
 import com.example.batchprocessor.model.SuccessfulTransaction;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface SuccessfulTransactionRepository extends JpaRepository<SuccessfulTransaction, Long> {
+    List<SuccessfulTransaction> findByTransactionIdIn(Collection<Long> transactionIds);
 }
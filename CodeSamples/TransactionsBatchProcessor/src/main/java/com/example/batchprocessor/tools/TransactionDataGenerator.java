@@ -0,0 +1,216 @@
+package com.example.batchprocessor.tools;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams a synthetic input file in the format of sample-transactions.csv, in constant memory:
+ * <ul>
+ *     <li>account numbers follow a Zipf distribution, a few accounts get most of the rows</li>
+ *     <li>credits and debits in a configurable ratio, amounts log-normal around 50.00</li>
+ *     <li>a configurable fraction of invalid (zero or negative) amounts</li>
+ *     <li>increasing timestamps with exponentially distributed gaps (written to the second, so rows may share one)</li>
+ * </ul>
+ * Output ending in .gz is gzip compressed. The same options and seed always give the same file.
+ *
+ * <pre>
+ * java -cp bank-transactions-batch-processor.jar com.example.batchprocessor.tools.TransactionDataGenerator \
+ *     --rows=10000000 --accounts=100000 --invalid-fraction=0.05 --output=transactions.csv.gz
+ * </pre>
+ */
+public class TransactionDataGenerator {
+
+    public static final String HEADER = "transactionId,accountNumber,amount,type,timestamp";
+
+    private static final long FIRST_ACCOUNT_NUMBER = 100_000_000L;
+
+    public record Options(long rows, int accounts, double zipfExponent, double debitRatio, double invalidFraction,
+                          LocalDateTime start, double meanIntervalMillis, long seed) {
+
+        public static Options defaults(long rows) {
+            return new Options(rows, 100_000, 1.1, 0.5, 0.05, LocalDateTime.of(2024, 1, 1, 0, 0), 50, 42);
+        }
+
+        public Options withAccounts(int accounts) {
+            return new Options(rows, accounts, zipfExponent, debitRatio, invalidFraction, start, meanIntervalMillis, seed);
+        }
+
+        public Options withInvalidFraction(double invalidFraction) {
+            return new Options(rows, accounts, zipfExponent, debitRatio, invalidFraction, start, meanIntervalMillis, seed);
+        }
+
+        public Options withSeed(long seed) {
+            return new Options(rows, accounts, zipfExponent, debitRatio, invalidFraction, start, meanIntervalMillis, seed);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> arguments = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            arguments.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        Options defaults = Options.defaults(1_000_000);
+        Options options = new Options(
+                Long.parseLong(arguments.getOrDefault("rows", String.valueOf(defaults.rows()))),
+                Integer.parseInt(arguments.getOrDefault("accounts", String.valueOf(defaults.accounts()))),
+                Double.parseDouble(arguments.getOrDefault("zipf-exponent", String.valueOf(defaults.zipfExponent()))),
+                Double.parseDouble(arguments.getOrDefault("debit-ratio", String.valueOf(defaults.debitRatio()))),
+                Double.parseDouble(arguments.getOrDefault("invalid-fraction", String.valueOf(defaults.invalidFraction()))),
+                LocalDateTime.parse(arguments.getOrDefault("start", defaults.start().toString())),
+                Double.parseDouble(arguments.getOrDefault("mean-interval-ms", String.valueOf(defaults.meanIntervalMillis()))),
+                Long.parseLong(arguments.getOrDefault("seed", String.valueOf(defaults.seed()))));
+        Path output = Path.of(arguments.getOrDefault("output", "transactions.csv"));
+
+        long started = System.nanoTime();
+        generate(options, output);
+        System.out.printf("Wrote %,d rows to %s in %.1f s%n", options.rows(), output, (System.nanoTime() - started) / 1e9);
+    }
+
+    public static void generate(Options options, Path output) throws IOException {
+        try (OutputStream out = Files.newOutputStream(output)) {
+            if (output.getFileName().toString().endsWith(".gz")) {
+                try (GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024)) {
+                    generate(options, gzip);
+                }
+            } else {
+                generate(options, out);
+            }
+        }
+    }
+
+    /**
+     * Writes the header and all rows to the stream, without closing it.
+     */
+    public static void generate(Options options, OutputStream out) throws IOException {
+        SplittableRandom random = new SplittableRandom(options.seed());
+        ZipfSampler accounts = new ZipfSampler(options.accounts(), options.zipfExponent());
+        long scramble = coprimeMultiplier(options.accounts());
+        long millis = options.start().toInstant(ZoneOffset.UTC).toEpochMilli();
+        long formattedSecond = Long.MIN_VALUE;
+        String formattedTimestamp = null;
+
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.US_ASCII), 256 * 1024);
+        StringBuilder line = new StringBuilder(64);
+        writer.write(HEADER);
+        writer.write('\n');
+        for (long id = 1; id <= options.rows(); id++) {
+            // hot ranks are spread over the account range instead of being the lowest account numbers
+            long rank = accounts.sample(random) - 1;
+            long accountNumber = FIRST_ACCOUNT_NUMBER + rank * scramble % options.accounts();
+
+            long cents = Math.min(100_000_000L, Math.max(1, Math.round(Math.exp(Math.log(5_000) + 1.2 * random.nextGaussian()))));
+            if (random.nextDouble() < options.invalidFraction()) {
+                cents = random.nextInt(4) == 0 ? 0 : -cents;
+            }
+
+            millis += 1 + (long) (-Math.log(1 - random.nextDouble()) * options.meanIntervalMillis());
+            long second = Math.floorDiv(millis, 1000);
+            if (second != formattedSecond) { // most rows share their second with the previous one
+                formattedSecond = second;
+                formattedTimestamp = LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC).toString();
+                if (formattedTimestamp.length() == 16) {
+                    formattedTimestamp += ":00"; // toString drops zero seconds
+                }
+            }
+
+            line.setLength(0);
+            line.append(id).append(',').append(accountNumber).append(',');
+            appendAmount(line, cents);
+            line.append(',').append(random.nextDouble() < options.debitRatio() ? "debit" : "credit")
+                    .append(',').append(formattedTimestamp).append('\n');
+            writer.append(line);
+        }
+        writer.flush();
+    }
+
+    private static void appendAmount(StringBuilder line, long cents) {
+        if (cents < 0) {
+            line.append('-');
+            cents = -cents;
+        }
+        long fraction = cents % 100;
+        line.append(cents / 100).append('.').append(fraction < 10 ? "0" : "").append(fraction);
+    }
+
+    // A multiplier coprime to n, so that rank * multiplier % n is a permutation of [0, n)
+    private static long coprimeMultiplier(long n) {
+        long multiplier = 2_654_435_761L % Math.max(n, 1);
+        while (multiplier > 1 && gcd(multiplier, n) != 1) {
+            multiplier--;
+        }
+        return Math.max(multiplier, 1);
+    }
+
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    /**
+     * Zipf distribution over 1..n by rejection-inversion (Hormann and Derflinger), O(1) time and memory per sample.
+     */
+    static final class ZipfSampler {
+        private final int n;
+        private final double exponent;
+        private final double hIntegralX1;
+        private final double hIntegralN;
+        private final double s;
+
+        ZipfSampler(int n, double exponent) {
+            this.n = n;
+            this.exponent = exponent;
+            this.hIntegralX1 = hIntegral(1.5) - 1;
+            this.hIntegralN = hIntegral(n + 0.5);
+            this.s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+        }
+
+        int sample(SplittableRandom random) {
+            while (true) {
+                double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+                double x = hIntegralInverse(u);
+                int k = (int) Math.min(n, Math.max(1, x + 0.5));
+                if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                    return k;
+                }
+            }
+        }
+
+        private double hIntegral(double x) {
+            double logX = Math.log(x);
+            return helper2((1 - exponent) * logX) * logX;
+        }
+
+        private double h(double x) {
+            return Math.exp(-exponent * Math.log(x));
+        }
+
+        private double hIntegralInverse(double x) {
+            double t = Math.max(-1, x * (1 - exponent));
+            return Math.exp(helper1(t) * x);
+        }
+
+        // log(1 + x) / x
+        private static double helper1(double x) {
+            return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+        }
+
+        // (exp(x) - 1) / x
+        private static double helper2(double x) {
+            return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x / 3 * (1 + 0.25 * x));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.batchprocessor.web;
+
+import com.example.batchprocessor.config.JobProgressTracker;
+import com.example.batchprocessor.config.JobProgressTracker.JobProgress;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * GET /jobs/progress returns the latest sample, GET /jobs/progress/stream sends one "progress" event
+ * per sample (batch.progress.sample-interval-ms) while the job runs, e.g. curl -N localhost:8080/jobs/progress/stream
+ */
+@RestController
+@RequestMapping("/jobs/progress")
+public class JobProgressController {
+
+    @Autowired
+    private JobProgressTracker jobProgressTracker;
+
+    @GetMapping
+    public JobProgress progress() {
+        return jobProgressTracker.latest();
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() throws IOException {
+        SseEmitter emitter = new SseEmitter(0L); // no timeout, the stream ends when the client disconnects
+        Consumer<JobProgress> subscriber = new Consumer<>() {
+            @Override
+            public void accept(JobProgress progress) {
+                try {
+                    emitter.send(SseEmitter.event().name("progress").data(progress, MediaType.APPLICATION_JSON));
+                } catch (IOException | IllegalStateException e) {
+                    jobProgressTracker.unsubscribe(this);
+                    emitter.completeWithError(e);
+                }
+            }
+        };
+        emitter.onCompletion(() -> jobProgressTracker.unsubscribe(subscriber));
+        emitter.onTimeout(() -> jobProgressTracker.unsubscribe(subscriber));
+        emitter.onError(e -> jobProgressTracker.unsubscribe(subscriber));
+
+        emitter.send(SseEmitter.event().name("progress").data(jobProgressTracker.latest(), MediaType.APPLICATION_JSON));
+        jobProgressTracker.subscribe(subscriber);
+        return emitter;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.batchprocessor.batch.partitioner;
+
+import com.example.batchprocessor.model.Transaction;
+import com.example.batchprocessor.repository.FailedTransactionRepository;
+import com.example.batchprocessor.repository.SuccessfulTransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs classifyTransactionJob (started by SpringBatchApplication) partitioned by LineRangePartitioner
+ * over sample-transactions.csv, whose workers start reading at the byte offset of their first line.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:line_range_partition_test",
+        "batch.partition.enabled=true",
+        "batch.partition.grid-size=3",
+        "batch.partition.thread-count=3"
+})
+class LineRangePartitionTests {
+
+    @Autowired
+    private JobExplorer jobExplorer;
+
+    @Autowired
+    private SuccessfulTransactionRepository successfulTransactionRepository;
+
+    @Autowired
+    private FailedTransactionRepository failedTransactionRepository;
+
+    @Test
+    void lineOffsetsPointAtTheStartOfTheLines() {
+        // the header takes 51 bytes including its CRLF, the 10 data lines end at byte 516, the end of the file
+        long[] offsets = LineRangePartitioner.lineOffsets(new ClassPathResource("sample-transactions.csv"), new int[]{0, 1, 4, 10, 12});
+        assertThat(offsets).containsExactly(51, 97, 236, 516, 516);
+    }
+
+    @Test
+    void lineStillBeingAppendedIsNotComplete() {
+        ByteArrayResource input = new ByteArrayResource("header\n1,a\n2,b".getBytes(StandardCharsets.US_ASCII));
+        assertThat(LineRangePartitioner.countDataLines(input)).isEqualTo(2);
+        assertThat(LineRangePartitioner.countCompleteDataLines(input)).isEqualTo(1);
+    }
+
+    @Test
+    void everyLineIsReadByExactlyOneWorker() {
+        JobExecution jobExecution = jobExplorer.getLastJobExecution(jobExplorer.getLastJobInstance("classifyTransactionJob"));
+        assertThat(jobExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+
+        List<StepExecution> workers = jobExecution.getStepExecutions().stream()
+                .filter(stepExecution -> stepExecution.getStepName().startsWith("transactionWorkerStep:"))
+                .toList();
+        assertThat(workers).hasSize(3);
+        assertThat(workers).extracting(StepExecution::getReadCount).containsExactlyInAnyOrder(4L, 4L, 2L);
+
+        List<Long> ids = Stream.concat(successfulTransactionRepository.findAll().stream(),
+                        failedTransactionRepository.findAll().stream())
+                .map(Transaction::getTransactionId)
+                .toList();
+        assertThat(ids).containsExactlyInAnyOrder(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+    }
+}
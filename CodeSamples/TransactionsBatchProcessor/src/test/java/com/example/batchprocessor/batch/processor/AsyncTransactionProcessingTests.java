@@ -0,0 +1,210 @@
+package com.example.batchprocessor.batch.processor;
+
+import com.example.batchprocessor.batch.aggregation.AccountAggregatingItemWriter;
+import com.example.batchprocessor.batch.processor.dedup.DuplicateTransactionProcessor;
+import com.example.batchprocessor.batch.processor.rule.TransactionRules;
+import com.example.batchprocessor.model.FailedTransaction;
+import com.example.batchprocessor.model.SuccessfulTransaction;
+import com.example.batchprocessor.model.Transaction;
+import com.example.batchprocessor.repository.FailedTransactionRepository;
+import com.example.batchprocessor.repository.SuccessfulTransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.integration.async.AsyncItemProcessor;
+import org.springframework.batch.integration.async.AsyncItemWriter;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs classifyTransactionJob (started by SpringBatchApplication) over sample-transactions.csv with the
+ * async transactionStep of TransactionJob, together with duplicate detection and account aggregation,
+ * whose listeners and streams the step can only see when TransactionJob registers them itself.
+ * The first two tests check the AsyncItemProcessor/AsyncItemWriter pair on its own.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:async_step_test",
+        "batch.chunk.size=3",
+        "batch.async.enabled=true",
+        "batch.async.concurrency-limit=3",
+        "batch.dedup.enabled=true",
+        "batch.aggregation.enabled=true"
+})
+class AsyncTransactionProcessingTests {
+
+    @Autowired
+    private JobExplorer jobExplorer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SuccessfulTransactionRepository successfulTransactionRepository;
+
+    @Autowired
+    private FailedTransactionRepository failedTransactionRepository;
+
+    @Autowired
+    private AsyncItemProcessor<Transaction, Transaction> asyncProcessor;
+
+    @Autowired
+    private AsyncItemWriter<Transaction> asyncWriter;
+
+    @Autowired
+    private DuplicateTransactionProcessor duplicateTransactionProcessor;
+
+    @Autowired
+    private AccountAggregatingItemWriter accountAggregatingWriter;
+
+    private final List<Transaction> written = new ArrayList<>();
+
+    @Test
+    void writesResultsInInputOrder() throws Exception {
+        TransactionProcessor processor = transactionProcessor();
+        // later items finish first
+        AsyncItemProcessor<Transaction, Transaction> asyncProcessor = asyncProcessor(transaction -> {
+            Thread.sleep(100 - transaction.getAmount().longValue());
+            return processor.process(transaction);
+        });
+
+        Chunk<Future<Transaction>> futures = new Chunk<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(asyncProcessor.process(transaction(i * 10.0)));
+        }
+        asyncWriter().write(futures);
+
+        assertThat(written).extracting(Transaction::getAmount)
+                .containsExactly(0.0, 10.0, 20.0, 30.0, 40.0, 50.0, 60.0, 70.0, 80.0, 90.0);
+        assertThat(written.get(0)).isInstanceOf(FailedTransaction.class);
+        assertThat(written.subList(1, 10)).allMatch(SuccessfulTransaction.class::isInstance);
+    }
+
+    @Test
+    void processingFailureFailsTheWriteOfTheChunk() throws Exception {
+        AsyncItemProcessor<Transaction, Transaction> asyncProcessor = asyncProcessor(transaction -> {
+            if (transaction.getAmount() == 20.0) {
+                throw new IllegalStateException("lookup failed");
+            }
+            return transaction;
+        });
+
+        Chunk<Future<Transaction>> futures = new Chunk<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(asyncProcessor.process(transaction(i * 10.0)));
+        }
+
+        assertThatThrownBy(() -> asyncWriter().write(futures))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("lookup failed");
+        assertThat(written).isEmpty();
+    }
+
+    @Test
+    void asyncStepWrapsTheConfiguredProcessorAndWriter() {
+        assertThat(ReflectionTestUtils.getField(asyncProcessor, "delegate")).isSameAs(duplicateTransactionProcessor);
+        assertThat(ReflectionTestUtils.getField(asyncWriter, "delegate")).isSameAs(accountAggregatingWriter);
+
+        SimpleAsyncTaskExecutor taskExecutor = (SimpleAsyncTaskExecutor) ReflectionTestUtils.getField(asyncProcessor, "taskExecutor");
+        assertThat(taskExecutor.getConcurrencyLimit()).isEqualTo(3);
+        assertThat(taskExecutor.isThrottleActive()).isTrue();
+    }
+
+    @Test
+    void jobClassifiesEveryRow() {
+        JobExecution jobExecution = lastJobExecution();
+        assertThat(jobExecution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+
+        StepExecution transactionStep = stepExecution(jobExecution, "transactionStep");
+        assertThat(transactionStep.getReadCount()).isEqualTo(10);
+        assertThat(transactionStep.getWriteCount()).isEqualTo(10);
+
+        assertThat(successfulTransactionRepository.count()).isEqualTo(8);
+        assertThat(failedTransactionRepository.findAll()).extracting(Transaction::getTransactionId)
+                .containsExactlyInAnyOrder(1L, 10L); // amounts 0.00 and -300.00
+    }
+
+    @Test
+    void stepListenersAndStreamsOfTheDelegatesAreRegistered() {
+        StepExecution transactionStep = stepExecution(lastJobExecution(), "transactionStep");
+        ExecutionContext executionContext = transactionStep.getExecutionContext();
+
+        // TransactionProcessor.reportRuleHits, an @AfterStep of the processor behind the async wrapper
+        assertThat(executionContext.getLong("rules.amountGreaterThan.hits")).isEqualTo(2);
+        // DuplicateTransactionProcessor.update, only called when the step registers it as a stream
+        assertThat(executionContext.getLong("duplicateTransactionProcessor.duplicates")).isZero();
+
+        // AccountAggregatingItemWriter folds committed chunks as a ChunkListener
+        List<String> summaries = jdbcTemplate.query(
+                "SELECT account_number, total_credit, total_debit, credit_count, debit_count FROM account_summary ORDER BY account_number",
+                (rs, rowNum) -> rs.getString(1) + "," + rs.getDouble(2) + "," + rs.getDouble(3) + ","
+                        + rs.getLong(4) + "," + rs.getLong(5));
+        assertThat(summaries).containsExactly(
+                "123456789,400.0,150.0,1,2",
+                "555555555,1000.0,700.0,1,1",
+                "987654321,500.0,500.0,1,2");
+
+        // AccountAggregatingItemWriter.update, what a restart rebuilds the accumulator from, up to the last chunk
+        @SuppressWarnings("unchecked")
+        Map<String, double[]> totals = (Map<String, double[]>) executionContext.get(AccountAggregatingItemWriter.TOTALS);
+        assertThat(totals).containsOnlyKeys("123456789", "555555555", "987654321");
+        assertThat(totals.get("123456789")).containsExactly(400.0, 150.0, 1.0, 2.0);
+        assertThat(totals.get("555555555")).containsExactly(1000.0, 700.0, 1.0, 1.0);
+        assertThat(totals.get("987654321")).containsExactly(500.0, 500.0, 1.0, 2.0);
+    }
+
+    private static TransactionProcessor transactionProcessor() {
+        return new TransactionProcessor(TransactionRules.compile(0.0, null, Set.of(), 0, null, null));
+    }
+
+    private static AsyncItemProcessor<Transaction, Transaction> asyncProcessor(ItemProcessor<Transaction, Transaction> delegate) {
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor();
+        taskExecutor.setVirtualThreads(true);
+
+        AsyncItemProcessor<Transaction, Transaction> asyncProcessor = new AsyncItemProcessor<>();
+        asyncProcessor.setDelegate(delegate);
+        asyncProcessor.setTaskExecutor(taskExecutor);
+        return asyncProcessor;
+    }
+
+    private AsyncItemWriter<Transaction> asyncWriter() {
+        AsyncItemWriter<Transaction> asyncWriter = new AsyncItemWriter<>();
+        asyncWriter.setDelegate(chunk -> written.addAll(chunk.getItems()));
+        return asyncWriter;
+    }
+
+    private static Transaction transaction(double amount) {
+        Transaction transaction = new Transaction();
+        transaction.setAccountNumber("123456789");
+        transaction.setAmount(amount);
+        transaction.setType("credit");
+        return transaction;
+    }
+
+    private JobExecution lastJobExecution() {
+        return jobExplorer.getLastJobExecution(jobExplorer.getLastJobInstance("classifyTransactionJob"));
+    }
+
+    private static StepExecution stepExecution(JobExecution jobExecution, String stepName) {
+        return jobExecution.getStepExecutions().stream()
+                .filter(stepExecution -> stepExecution.getStepName().equals(stepName))
+                .findFirst()
+                .orElseThrow();
+    }
+}